@@ -0,0 +1,42 @@
+package com.nighthawk.spring_portfolio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.nighthawk.spring_portfolio.mvc.calendar.APCalendar;
+import com.nighthawk.spring_portfolio.mvc.calendar.CalendarTable;
+
+/* APCalendar lookups across year ranges
+   year is both the date looked up and the span counted by numberOfLeapYears(1, year).
+   tableDayOfWeek reads CalendarTable for 2022, the other years fall back to APCalendar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class APCalendarBenchmark {
+
+    @Param({"2022", "20000", "2000000", "2000000000"})
+    public int year;
+
+    @Benchmark
+    public int dayOfWeek() {
+        return APCalendar.dayOfWeek(7, 4, year);
+    }
+
+    @Benchmark
+    public int tableDayOfWeek() {
+        return CalendarTable.getDefault().dayOfWeek(7, 4, year);
+    }
+
+    @Benchmark
+    public int numberOfLeapYears() {
+        return APCalendar.numberOfLeapYears(1, year);
+    }
+}
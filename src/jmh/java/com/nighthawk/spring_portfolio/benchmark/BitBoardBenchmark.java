@@ -0,0 +1,75 @@
+package com.nighthawk.spring_portfolio.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.nighthawk.spring_portfolio.mvc.lightboard.BitBoard;
+
+/* Bit-packed Game of Life stepping, sizes go well past what LightBoard can hold
+   Boards are filled without Light objects so 4096x4096 fits in a small heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BitBoardBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private BitBoard board;
+    private BitBoard glider;    // one glider on an otherwise empty board, the sparse case
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        board = new BitBoard(size, size);
+        SplittableRandom random = new SplittableRandom(SEED);  // same board every run
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                board.set(row, col, random.nextBoolean());
+            }
+        }
+        glider = new BitBoard(size, size);
+        glider.set(0, 1, true);
+        glider.set(1, 2, true);
+        glider.set(2, 0, true);
+        glider.set(2, 1, true);
+        glider.set(2, 2, true);
+    }
+
+    @Benchmark
+    public BitBoard step() {
+        board.step();
+        return board;
+    }
+
+    @Benchmark
+    public BitBoard stepParallel() {
+        board.step(ForkJoinPool.commonPool());
+        return board;
+    }
+
+    @Benchmark
+    public BitBoard stepGlider() {
+        glider.step();
+        return glider;
+    }
+
+    @Benchmark
+    public BitBoard stepGliderSparse() {
+        glider.stepSparse();
+        return glider;
+    }
+}
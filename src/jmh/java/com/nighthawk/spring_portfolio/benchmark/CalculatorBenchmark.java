@@ -0,0 +1,56 @@
+package com.nighthawk.spring_portfolio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.nighthawk.spring_portfolio.mvc.calculator.Calculator;
+import com.nighthawk.spring_portfolio.mvc.calculator.CompiledExpression;
+
+/* Calculator hot paths
+    - parse: full constructor, tokenize + RPN + evaluate, what an uncached GET costs
+    - evaluate: re-run an already compiled expression
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalculatorBenchmark {
+
+    @Param({"100 + 200  * 3", "(100 + 200)  * 3 ^ 2 - SQRT(16) / 4 % 3", "long"})
+    public String expression;
+
+    private String text;
+    private CompiledExpression compiled;
+
+    @Setup
+    public void setup() {
+        // "long" stands in for a machine generated expression of a few thousand characters
+        if (expression.equals("long")) {
+            StringBuilder generated = new StringBuilder("1");
+            for (int i = 0; i < 1000; i++) {
+                generated.append(" + (").append(i).append(" * 2)");
+            }
+            text = generated.toString();
+        } else {
+            text = expression;
+        }
+        compiled = new Calculator(text).getCompiled();
+    }
+
+    @Benchmark
+    public Calculator parse() {
+        return new Calculator(text);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return compiled.evaluate();
+    }
+}
@@ -0,0 +1,42 @@
+package com.nighthawk.spring_portfolio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.nighthawk.spring_portfolio.mvc.lightboard.Light;
+import com.nighthawk.spring_portfolio.mvc.lightboard.LightBoard;
+
+/* LightBoard Game of Life stepping on square boards of several sizes
+   A fresh random board is built each iteration so the pattern does not die out mid measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LightBoardBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"16", "64", "256", "1024"})
+    public int size;
+
+    private LightBoard board;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        board = new LightBoard(size, size, SEED);  // same board every run
+    }
+
+    @Benchmark
+    public Light[][] nextGeneration() {
+        return board.nextGeneration();
+    }
+}
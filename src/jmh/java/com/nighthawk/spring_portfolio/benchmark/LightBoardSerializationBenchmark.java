@@ -0,0 +1,60 @@
+package com.nighthawk.spring_portfolio.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.nighthawk.spring_portfolio.mvc.lightboard.LightBoard;
+import com.nighthawk.spring_portfolio.mvc.lightboard.LightBoardWriter;
+
+/* LightBoard text output, JSON style toString(), ANSI toTerminal() and toColorPalette(),
+   plus JSON written straight to a stream with LightBoardWriter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LightBoardSerializationBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"5", "25", "100", "1000"})
+    public int size;
+
+    private LightBoard board;
+
+    @Setup
+    public void setup() {
+        board = new LightBoard(size, size, SEED);  // same board every run
+    }
+
+    @Benchmark
+    public String json() {
+        return board.toString();
+    }
+
+    @Benchmark
+    public String terminal() {
+        return board.toTerminal();
+    }
+
+    @Benchmark
+    public String palette() {
+        return board.toColorPalette();
+    }
+
+    @Benchmark
+    public void jsonStream() throws IOException {
+        LightBoardWriter writer = new LightBoardWriter(OutputStream.nullOutputStream());
+        writer.writeJson(board.getLights());
+        writer.flush();
+    }
+}
@@ -7,12 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.nighthawk.spring_portfolio.mvc.jokes.Jokes;
 import com.nighthawk.spring_portfolio.mvc.jokes.JokesJpaRepository;
+import com.nighthawk.spring_portfolio.mvc.person.PersonStatMigration;
 
 import java.util.List;
 
 @Component // Scans Application for ModelInit Bean, this detects CommandLineRunner
 public class ModelInit {  
     @Autowired JokesJpaRepository repository;
+    @Autowired PersonStatMigration statMigration;
 
     @Bean
     CommandLineRunner run() {  // The run() method will be executed after the application starts
@@ -26,6 +28,9 @@ public class ModelInit {
                     repository.save(new Jokes(null, joke, 0, 0)); //JPA save
             }
 
+            // Person stats recorded before person_stat existed are copied over once
+            statMigration.migrate();
+
         };
     }
 }
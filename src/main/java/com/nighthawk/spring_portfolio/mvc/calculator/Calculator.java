@@ -1,7 +1,10 @@
 package com.nighthawk.spring_portfolio.mvc.calculator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -18,11 +21,12 @@ public class Calculator {
     private final String expression;
     private ArrayList<String> tokens;
     private ArrayList<String> reverse_polish;
+    private CompiledExpression compiled;
     private Double result = 0.0;
 
-    // Helper definition for supported operators
-    private final Map<String, Integer> OPERATORS = new HashMap<>();
-    {
+    // Helper definition for supported operators, shared by all instances
+    private static final Map<String, Integer> OPERATORS = new HashMap<>();
+    static {
         // Map<"token", precedence>
         OPERATORS.put("SQRT", 2);
         OPERATORS.put("RT", 2);
@@ -34,17 +38,6 @@ public class Calculator {
         OPERATORS.put("-", 4);
     }
 
-    // Helper definition for supported operators
-    private final Map<String, Integer> SEPARATORS = new HashMap<>();
-    {
-        // Map<"separator", not_used>
-        SEPARATORS.put(" ", 0);
-        SEPARATORS.put("(", 0);
-        SEPARATORS.put(")", 0);
-        // add comma
-        SEPARATORS.put(",", 0);
-    }
-
     // Create a 1 argument constructor expecting a mathematical expression
     public Calculator(String expression) {
         // original input
@@ -64,30 +57,37 @@ public class Calculator {
         this.rpnToResult();
     }
 
-    // Test if token is an operator
-    private boolean isOperator(String token) {
-        // find the token in the hash map
-        return OPERATORS.containsKey(token);
+    // Copy constructor used by ExpressionCache, shares the terms and result of an already parsed expression
+    Calculator(Calculator compiled, String expression) {
+        this.expression = expression;
+        this.tokens = compiled.tokens;
+        this.reverse_polish = compiled.reverse_polish;
+        this.compiled = compiled.compiled;
+        this.result = compiled.result;
     }
 
-    // Test if token is an separator
-    private boolean isSeparator(String token) {
+    // Test if token is an operator
+    private static boolean isOperator(String token) {
         // find the token in the hash map
-        return SEPARATORS.containsKey(token);
+        return OPERATORS.containsKey(token);
     }
 
     // Compare precedence of operators.
-    private Boolean isPrecedent(String token1, String token2) {
+    private static Boolean isPrecedent(String token1, String token2) {
         // token 1 is precedent if it is greater than token 2
         return (OPERATORS.get(token1) - OPERATORS.get(token2) >= 0) ;
     }
 
     private boolean isParenthesisBalanced() {
+        return isParenthesisBalanced(this.reverse_polish);
+    }
+
+    private static boolean isParenthesisBalanced(List<String> reverse_polish) {
         // count is open =/= closed count
         int oCount = 0;
         int cCount = 0;
 
-        for (String c : this.reverse_polish) {
+        for (String c : reverse_polish) {
             if (c.equals("(")) {
                 oCount++;
             }
@@ -102,41 +102,29 @@ public class Calculator {
     // Term Tokenizer takes original expression and converts it to ArrayList of tokens
     private void termTokenizer() {
         // contains final list of tokens
-        this.tokens = new ArrayList<>();
-
-        int start = 0;  // term split starting index
-        StringBuilder multiCharTerm = new StringBuilder();    // term holder
-        for (int i = 0; i < this.expression.length(); i++) {
-            Character c = this.expression.charAt(i);
-            if ( isOperator(c.toString() ) || isSeparator(c.toString())  ) {
-                // 1st check for working term and add if it exists
-                if (multiCharTerm.length() > 0) {
-                    tokens.add(this.expression.substring(start, i));
-                }
-                // Add operator or parenthesis term to list
-                if (c != ' ') {
-                    tokens.add(c.toString());
-                }
-                // Get ready for next term
-                start = i + 1;
-                multiCharTerm = new StringBuilder();
-            } else {
-                // multi character terms: numbers, functions, perhaps non-supported elements
-                // Add next character to working term
-                multiCharTerm.append(c);
-            }
+        this.tokens = termTokenizer(this.expression);
+    }
 
+    private static ArrayList<String> termTokenizer(String expression) {
+        ArrayList<String> tokens = new ArrayList<>();
+
+        // scanner classifies characters by table lookup, spaces separate terms and are dropped
+        ExpressionScanner scanner = new ExpressionScanner(expression);
+        while (scanner.next() != ExpressionScanner.END) {
+            tokens.add(scanner.text());
         }
-        // Add last term
-        if (multiCharTerm.length() > 0) {
-            tokens.add(this.expression.substring(start));
-        }
+        return tokens;
     }
 
     // Takes tokens and converts to Reverse Polish Notation (RPN), this is one where the operator follows its operands.
     private void tokensToReversePolishNotation () {
         // contains final list of tokens in RPN
-        this.reverse_polish = new ArrayList<>();
+        this.reverse_polish = tokensToReversePolishNotation(this.tokens);
+    }
+
+    // Shunting-yard conversion, shared by the constructor and compile()
+    private static ArrayList<String> tokensToReversePolishNotation (List<String> tokens) {
+        ArrayList<String> reverse_polish = new ArrayList<>();
 
         // stack is used to reorder for appropriate grouping and precedence
         Stack<String> tokenStack = new Stack<String>();
@@ -174,75 +162,51 @@ public class Calculator {
                     // Push the new operator on the stack
                     tokenStack.push(token);
                     break;
-                default:    // Default should be a number, there could be test here
-                    this.reverse_polish.add(token);
+                default:    // Default should be a number or variable, there could be test here
+                    reverse_polish.add(token);
             }
         }
         // Empty remaining tokens
         while (tokenStack.size() > 0) {
             reverse_polish.add(tokenStack.pop());
         }
+        return reverse_polish;
+    }
 
+    /* Compile an expression with named variables, parse once and evaluate many times
+     *   CompiledExpression score = Calculator.compile("x * 2 + SQRT(y)", "x", "y");
+     *   score.evaluate(new double[] {3, 16});     // 10.0, values bound in the order of the names
+     *   score.evaluate(new double[][] {xs, ys}, results);   // one result per row of the columns
+     */
+    public static CompiledExpression compile(String expression, String... variables) {
+        ArrayList<String> reverse_polish = tokensToReversePolishNotation(termTokenizer(expression));
+        if (!isParenthesisBalanced(reverse_polish)) {
+            throw new IllegalArgumentException("Parenthesis are not balanced");
+        }
+        return CompiledExpression.compile(reverse_polish, variables);
     }
 
     // Takes RPN and produces a final result
     private void rpnToResult()
     {
-        // stack is used to hold operands and each calculation
-        Stack<Double> calcStack = new Stack<Double>();
-
-        // RPN is processed, ultimately calcStack has final result
-        for (String token : this.reverse_polish)
-        {
-            // If the token is an operator, calculate
-            if (isOperator(token))
-            {
-                // Pop the two top entries
-                double a = calcStack.pop();
-                // if token isn't SQRT, pop another
-                double b = (token.equals("SQRT")) ? 0 : calcStack.pop();
-
-                // Calculate intermediate results
-                switch (token) {
-                    case "SQRT":
-                        result = Math.sqrt(a);
-                        break;
-                    case "RT":
-                        result = Math.pow(a, (1/b));
-                        break;
-                    case "+":
-                        result = b + a;
-                        break;
-                    case "-":
-                        result = b - a;
-                        break;
-                    case "*":
-                        result = b * a;
-                        break; 
-                    case "/":
-                        result = b / a;
-                        break;
-                    case "%":
-                        result = b % a;
-                        break;
-                    case "^":
-                        result = Math.pow(b,a);
-                        break;
-                    default:
-                        break;
-                }
+        // RPN is compiled once into opcodes and a constant pool, then run on a primitive stack
+        this.compiled = CompiledExpression.compile(this.reverse_polish);
+        this.result = this.compiled.evaluate();
+    }
 
-                // Push intermediate result back onto the stack
-                calcStack.push( result );
-            }
-            // else the token is a number push it onto the stack
-            else
-            {
-                calcStack.push(Double.valueOf(token));
-            }
-        }
-        // Pop final result and set as final result for expression
-        this.result = calcStack.pop();
+    // Compiled RPN program, can be re-evaluated without parsing or allocation
+    public CompiledExpression getCompiled() {
+        return this.compiled;
+    }
+
+    // Final result of the expression
+    public Double getResult() {
+        return this.result;
+    }
+
+    // Terms in reverse polish notation, read only since cached calculators share them
+    public List<String> getReversePolish() {
+        return Collections.unmodifiableList(this.reverse_polish);
     }
 
     // Print the expression, terms, and result
@@ -288,6 +252,13 @@ public class Calculator {
         Calculator sqrtMath = new Calculator("SQRT(4)");
         System.out.println("Square Root Math\n" + sqrtMath);
 
+        // Compile once with variables, evaluate for many bindings
+        CompiledExpression score = Calculator.compile("x * 2 + SQRT(y)", "x", "y");
+        System.out.println("Variable Math\n" + score.evaluate(new double[] {3, 16}));
+        double[] scores = new double[3];
+        score.evaluate(new double[][] { {1, 2, 3}, {4, 9, 16} }, scores);
+        System.out.println("Column Math\n" + Arrays.toString(scores));
+
         // Calculator rtMath = new Calculator("RT(4,2)");
         // System.out.println("Root Math\n" + rtMath);
 
@@ -1,18 +1,39 @@
 package com.nighthawk.spring_portfolio.mvc.calculator;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/calculator")
 public class CalculatorApiController {
+  // compiled expressions, repeat requests skip tokenizing and RPN conversion
+  private final ExpressionCache cache = new ExpressionCache(1000, 30 * 60 * 1000L);
+
+  // batch items are evaluated in parallel one chunk at a time, then streamed in request order
+  private static final int BATCH_CHUNK = 512;
+
+  // Spring's shared mapper, used for its JsonFactory when streaming batch results
+  @Autowired
+  private ObjectMapper mapper;
 
   /**
    * GET isLeapYear endpoint
@@ -23,9 +44,77 @@ public class CalculatorApiController {
    */
   @GetMapping("/{expression}")
   public ResponseEntity<String> getCalculation(@PathVariable("expression") String expression) throws JsonMappingException, JsonProcessingException {
-    Calculator calculation = new Calculator(expression);
+    Calculator calculation = cache.get(expression);
     String result = calculation.toString(); // this requires exception handling
 
     return new ResponseEntity<String>(result, HttpStatus.OK); // JSON response, see ExceptionHandlerAdvice for throws
   }
-}
\ No newline at end of file
+
+  /* POST batch of expressions, body is a JSON array of strings
+   * Response streams one object per expression, in request order:
+   *   {"expression": "1+2", "value": 3.0, "rpn": ["1","2","+"], "error": null}
+   * A bad expression reports its error and does not fail the rest of the batch.
+   * Items use expressions already in the cache but do not add to it.
+   */
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> getBatchCalculation(@RequestBody final List<String> expressions) {
+    StreamingResponseBody body = out -> {
+      try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+        json.writeStartArray();
+        Object[] results = new Object[Math.min(BATCH_CHUNK, expressions.size())];
+        for (int from = 0; from < expressions.size(); from += BATCH_CHUNK) {
+          final int offset = from;
+          final int to = Math.min(from + BATCH_CHUNK, expressions.size());
+          // Calculator or error message per item, computed across cores
+          IntStream.range(offset, to).parallel().forEach(i -> results[i - offset] = evaluate(expressions.get(i)));
+          for (int i = offset; i < to; i++) {
+            writeResult(json, expressions.get(i), results[i - offset]);
+          }
+          json.flush();
+        }
+        json.writeEndArray();
+      }
+    };
+    return new ResponseEntity<>(body, HttpStatus.OK);
+  }
+
+  // Evaluate using the shared cache's hot entries without adding to them, so a large batch of
+  // one-off expressions does not evict what single requests keep cached
+  // returns the Calculator or an error message
+  private Object evaluate(String expression) {
+    if (expression == null) {
+      return "Expression is missing";
+    }
+    try {
+      return cache.getWithoutStoring(expression);
+    } catch (RuntimeException e) {
+      return (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+    }
+  }
+
+  private static void writeResult(JsonGenerator json, String expression, Object result) throws IOException {
+    json.writeStartObject();
+    json.writeStringField("expression", expression);
+    if (result instanceof Calculator) {
+      Calculator calculation = (Calculator) result;
+      json.writeNumberField("value", calculation.getResult());
+      json.writeArrayFieldStart("rpn");
+      for (String token : calculation.getReversePolish()) {
+        json.writeString(token);
+      }
+      json.writeEndArray();
+      json.writeNullField("error");
+    } else {
+      json.writeNullField("value");
+      json.writeNullField("rpn");
+      json.writeStringField("error", (String) result);
+    }
+    json.writeEndObject();
+  }
+
+  /* GET expression cache counters: size, hits, misses, evictions, hitRate */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<Map<String, Object>> getCacheStats() {
+    return new ResponseEntity<>(cache.stats(), HttpStatus.OK);
+  }
+}
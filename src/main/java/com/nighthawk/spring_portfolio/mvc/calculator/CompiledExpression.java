@@ -0,0 +1,271 @@
+package com.nighthawk.spring_portfolio.mvc.calculator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.List;
+
+/* Reverse polish notation compiled into a compact program
+    - each instruction is one int, the low 4 bits are the opcode and the rest is an operand index
+    - number operands are parsed once into a double[] constant pool
+    - variable operands load from the bindings passed to evaluate, in the order the names were declared
+    - evaluation runs on a primitive double[] stack, so repeated evaluation allocates nothing
+   Errors (bad numbers, missing operands) are found while compiling, in the same order
+   Calculator.rpnToResult() used to find them, so evaluate() itself cannot fail.
+ */
+public class CompiledExpression {
+    // opcodes
+    static final int PUSH = 0;
+    static final int SQRT = 1;
+    static final int RT = 2;
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int DIV = 6;
+    static final int MOD = 7;
+    static final int POW = 8;
+    static final int LOAD = 9;
+
+    private static final int OPCODE_BITS = 4;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    // rows evaluated together by the columnar evaluate, sized so a block stack stays in cache
+    private static final int BLOCK = 256;
+
+    private static final double[] NO_BINDINGS = new double[0];
+
+    private final int[] program;
+    private final double[] constants;
+    private final String[] variables;
+    private final int maxDepth;
+
+    // scratch operand stack per thread, grown to the deepest expression seen
+    private static final ThreadLocal<double[]> STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    private CompiledExpression(int[] program, double[] constants, String[] variables, int maxDepth) {
+        this.program = program;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxDepth = maxDepth;
+    }
+
+    // Compile RPN tokens, throws like evaluating them would: NumberFormatException or EmptyStackException
+    public static CompiledExpression compile(List<String> reversePolish) {
+        return compile(reversePolish, new String[0]);
+    }
+
+    // Compile RPN tokens where any token matching one of variables is loaded from the bindings
+    public static CompiledExpression compile(List<String> reversePolish, String... variables) {
+        String[] names = checkVariables(variables);
+        int[] program = new int[reversePolish.size()];
+        List<Double> pool = new ArrayList<>();
+        int depth = 0;
+        int maxDepth = 0;
+
+        for (int pc = 0; pc < program.length; pc++) {
+            String token = reversePolish.get(pc);
+            int opcode = opcodeOf(token);
+            if (opcode == PUSH) {
+                int variable = indexOf(names, token);
+                if (variable >= 0) {
+                    program[pc] = (variable << OPCODE_BITS) | LOAD;
+                } else {
+                    pool.add(Double.valueOf(token));
+                    program[pc] = ((pool.size() - 1) << OPCODE_BITS) | PUSH;
+                }
+                depth++;
+                maxDepth = Math.max(maxDepth, depth);
+            } else {
+                // SQRT pops one operand, every other operator pops two and pushes one
+                int operands = (opcode == SQRT) ? 1 : 2;
+                if (depth < operands) {
+                    throw new EmptyStackException();
+                }
+                depth = depth - operands + 1;
+                program[pc] = opcode;
+            }
+        }
+        // final result is popped from the stack
+        if (depth == 0) {
+            throw new EmptyStackException();
+        }
+
+        double[] constants = new double[pool.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = pool.get(i);
+        }
+        return new CompiledExpression(program, constants, names, maxDepth);
+    }
+
+    // Variable names must be plain identifiers, and not the SQRT or RT functions
+    private static String[] checkVariables(String[] variables) {
+        String[] names = variables.clone();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null || !names[i].matches("[A-Za-z_][A-Za-z0-9_]*") || opcodeOf(names[i]) != PUSH) {
+                throw new IllegalArgumentException("Invalid variable name: " + names[i]);
+            }
+            if (indexOf(names, names[i]) != i) {
+                throw new IllegalArgumentException("Duplicate variable name: " + names[i]);
+            }
+        }
+        return names;
+    }
+
+    private static int indexOf(String[] names, String token) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Map an RPN token to its opcode, anything that is not an operator is a number or variable
+    private static int opcodeOf(String token) {
+        switch (token) {
+            case "SQRT": return SQRT;
+            case "RT": return RT;
+            case "+": return ADD;
+            case "-": return SUB;
+            case "*": return MUL;
+            case "/": return DIV;
+            case "%": return MOD;
+            case "^": return POW;
+            default: return PUSH;
+        }
+    }
+
+    // Deepest operand stack this program needs
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // Variable names, in the order values are bound
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    // Evaluate a constant expression with this thread's scratch stack
+    public double evaluate() {
+        return evaluate(NO_BINDINGS);
+    }
+
+    // Evaluate with one value per variable, using this thread's scratch stack
+    public double evaluate(double[] bindings) {
+        double[] stack = STACK.get();
+        if (stack.length < maxDepth) {
+            stack = new double[maxDepth];
+            STACK.set(stack);
+        }
+        return evaluate(bindings, stack);
+    }
+
+    // Evaluate with a caller supplied stack of at least getMaxDepth() entries
+    public double evaluate(double[] bindings, double[] stack) {
+        if (bindings.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values");
+        }
+        int sp = 0;  // next free slot
+        for (int instruction : program) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == PUSH) {
+                stack[sp++] = constants[instruction >>> OPCODE_BITS];
+                continue;
+            }
+            if (opcode == LOAD) {
+                stack[sp++] = bindings[instruction >>> OPCODE_BITS];
+                continue;
+            }
+            // a is the top of the stack, b is below it, same as Calculator.rpnToResult()
+            double a = stack[--sp];
+            if (opcode == SQRT) {
+                stack[sp++] = Math.sqrt(a);
+                continue;
+            }
+            double b = stack[--sp];
+            stack[sp++] = apply(opcode, a, b);
+        }
+        return stack[sp - 1];
+    }
+
+    /* Evaluate over columns of values, columns[v][row] is the value of variable v in that row
+     * Rows are processed in blocks, each instruction runs as a tight loop over the whole block,
+     * which the JIT can unroll and vectorize. results must hold one entry per row.
+     */
+    public void evaluate(double[][] columns, double[] results) {
+        int rows = results.length;
+        if (columns.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable columns");
+        }
+        for (int v = 0; v < variables.length; v++) {
+            if (columns[v].length < rows) {
+                throw new IllegalArgumentException("Column " + variables[v] + " has fewer than " + rows + " rows");
+            }
+        }
+
+        double[][] stack = new double[maxDepth][BLOCK];
+        for (int base = 0; base < rows; base += BLOCK) {
+            int n = Math.min(BLOCK, rows - base);
+            int sp = 0;
+            for (int instruction : program) {
+                int opcode = instruction & OPCODE_MASK;
+                if (opcode == PUSH) {
+                    Arrays.fill(stack[sp++], 0, n, constants[instruction >>> OPCODE_BITS]);
+                    continue;
+                }
+                if (opcode == LOAD) {
+                    System.arraycopy(columns[instruction >>> OPCODE_BITS], base, stack[sp++], 0, n);
+                    continue;
+                }
+                double[] a = stack[--sp];
+                if (opcode == SQRT) {
+                    for (int i = 0; i < n; i++) {
+                        a[i] = Math.sqrt(a[i]);
+                    }
+                    sp++;
+                    continue;
+                }
+                // result overwrites b, which stays on the stack
+                double[] b = stack[sp - 1];
+                switch (opcode) {
+                    case ADD:
+                        for (int i = 0; i < n; i++) b[i] = b[i] + a[i];
+                        break;
+                    case SUB:
+                        for (int i = 0; i < n; i++) b[i] = b[i] - a[i];
+                        break;
+                    case MUL:
+                        for (int i = 0; i < n; i++) b[i] = b[i] * a[i];
+                        break;
+                    case DIV:
+                        for (int i = 0; i < n; i++) b[i] = b[i] / a[i];
+                        break;
+                    default:  // RT, MOD, POW
+                        for (int i = 0; i < n; i++) b[i] = apply(opcode, a[i], b[i]);
+                        break;
+                }
+            }
+            System.arraycopy(stack[sp - 1], 0, results, base, n);
+        }
+    }
+
+    // Binary operator, a is the top of the stack and b is below it
+    private static double apply(int opcode, double a, double b) {
+        switch (opcode) {
+            case RT:
+                return Math.pow(a, (1/b));
+            case ADD:
+                return b + a;
+            case SUB:
+                return b - a;
+            case MUL:
+                return b * a;
+            case DIV:
+                return b / a;
+            case MOD:
+                return b % a;
+            default:  // POW
+                return Math.pow(b, a);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.nighthawk.spring_portfolio.mvc.calculator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Bounded cache of compiled Calculator expressions
+    - keyed by normalized expression text, so "100 + 200" and " 100  + 200 " share one parse
+    - entries are evicted when the cache is over size or an entry has been idle too long
+    - LinkedHashMap in access order keeps the least recently used entry at the head,
+      which is also the entry that has been idle the longest, so both evictions pop from the head
+ */
+public class ExpressionCache {
+    private final int maxSize;
+    private final long maxIdleNanos;
+
+    // Map<"normalized expression", compiled calculator + last access time>
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // counters exposed through stats()
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    private static class Entry {
+        final Calculator calculator;
+        long lastAccess;
+
+        Entry(Calculator calculator, long lastAccess) {
+            this.calculator = calculator;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    public ExpressionCache(int maxSize, long maxIdleMillis) {
+        if (maxSize < 1 || maxIdleMillis < 1) {
+            throw new IllegalArgumentException("Cache size and idle time must be positive");
+        }
+        this.maxSize = maxSize;
+        this.maxIdleNanos = maxIdleMillis * 1_000_000L;
+    }
+
+    // Normalize expression text, spaces are separators so runs of spaces tokenize the same as one
+    // only ' ' is touched, tabs and other characters are tokens to the scanner and stay in the key
+    public static String normalize(String expression) {
+        int start = 0, end = expression.length();
+        while (start < end && expression.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && expression.charAt(end - 1) == ' ') {
+            end--;
+        }
+        String trimmed = expression.substring(start, end);
+        if (!trimmed.contains("  ")) {
+            return trimmed;  // common case, nothing to collapse
+        }
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == ' ' && trimmed.charAt(i - 1) == ' ') {
+                continue;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    // Returns a Calculator for expression, parsing only when the normalized text is not cached
+    public Calculator get(String expression) {
+        return get(expression, true);
+    }
+
+    // Same as get() but a miss is parsed without being cached, for one-off bulk work
+    // (batches) that should use the hot entries without evicting them
+    public Calculator getWithoutStoring(String expression) {
+        return get(expression, false);
+    }
+
+    private Calculator get(String expression, boolean storeMiss) {
+        String key = normalize(expression);
+        Calculator compiled = lookup(key);
+        if (compiled == null) {
+            // parse outside of the lock, invalid expressions throw and are never cached
+            compiled = new Calculator(key);
+            if (storeMiss) {
+                store(key, compiled);
+            }
+        }
+        // share the compiled terms but report the expression exactly as the caller wrote it
+        return expression.equals(key) ? compiled : new Calculator(compiled, expression);
+    }
+
+    private synchronized Calculator lookup(String key) {
+        long now = System.nanoTime();
+        evictIdle(now);
+        Entry entry = entries.get(key);  // access order moves entry to the tail
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.lastAccess = now;
+        return entry.calculator;
+    }
+
+    private synchronized void store(String key, Calculator compiled) {
+        entries.put(key, new Entry(compiled, System.nanoTime()));
+        // size eviction, least recently used entries are at the head
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Idle eviction, stops at the first entry that was used recently enough
+    private void evictIdle(long now) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            if (now - eldest.next().lastAccess <= maxIdleNanos) {
+                break;
+            }
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // Snapshot of cache counters for monitoring
+    public synchronized Map<String, Object> stats() {
+        long requests = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        return stats;
+    }
+}
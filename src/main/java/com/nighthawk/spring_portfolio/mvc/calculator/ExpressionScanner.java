@@ -0,0 +1,113 @@
+package com.nighthawk.spring_portfolio.mvc.calculator;
+
+/* Single pass scanner for calculator expressions
+    - characters are classified with a static lookup table, no boxing or map lookups per character
+    - tokens are reported as a type plus [start, end) offsets into the input, text is only built on request
+    - any run of characters that is not an operator, parenthesis, comma or space is one term,
+      terms named SQRT or RT are functions, every other term is treated as a number
+ */
+public class ExpressionScanner {
+    // token types returned by next()
+    public static final int END = 0;
+    public static final int NUMBER = 1;
+    public static final int FUNCTION = 2;
+    public static final int OPERATOR = 3;
+    public static final int LEFT_PAREN = 4;
+    public static final int RIGHT_PAREN = 5;
+    public static final int COMMA = 6;
+
+    // character classes, TERM is the default for anything not in the table
+    private static final byte TERM = 0;
+    private static final byte SPACE = 1;
+    private static final byte[] CLASS = new byte[128];
+    static {
+        CLASS[' '] = SPACE;
+        CLASS['('] = LEFT_PAREN;
+        CLASS[')'] = RIGHT_PAREN;
+        CLASS[','] = COMMA;
+        for (char c : "^*/%+-".toCharArray()) {
+            CLASS[c] = OPERATOR;
+        }
+    }
+
+    // shared single character token strings, avoids a substring per operator or parenthesis
+    private static final String[] SINGLE = new String[128];
+    static {
+        for (char c : "()^*/%+-,".toCharArray()) {
+            SINGLE[c] = String.valueOf(c);
+        }
+    }
+
+    private final String input;
+    private int position = 0;
+    private int start = 0;
+    private int end = 0;
+    private int type = END;
+
+    public ExpressionScanner(String input) {
+        this.input = input;
+    }
+
+    private static int classOf(char c) {
+        return (c < 128) ? CLASS[c] : TERM;
+    }
+
+    // Advance to the next token and return its type, END when the input is exhausted
+    public int next() {
+        int length = input.length();
+        // skip separating spaces
+        while (position < length && input.charAt(position) == ' ') {
+            position++;
+        }
+        if (position == length) {
+            start = end = position;
+            return type = END;
+        }
+
+        start = position;
+        int charClass = classOf(input.charAt(position));
+        if (charClass != TERM) {
+            // operators, parenthesis and commas are always one character
+            end = ++position;
+            return type = charClass;
+        }
+        // multi character term runs until the next operator or separator
+        while (position < length && classOf(input.charAt(position)) == TERM) {
+            position++;
+        }
+        end = position;
+        return type = isFunction() ? FUNCTION : NUMBER;
+    }
+
+    private boolean isFunction() {
+        int length = end - start;
+        return (length == 4 && input.startsWith("SQRT", start))
+            || (length == 2 && input.startsWith("RT", start));
+    }
+
+    // Type of the current token
+    public int type() {
+        return type;
+    }
+
+    // Offset of the first character of the current token
+    public int start() {
+        return start;
+    }
+
+    // Offset just past the last character of the current token
+    public int end() {
+        return end;
+    }
+
+    // Text of the current token
+    public String text() {
+        if (end - start == 1) {
+            String single = (input.charAt(start) < 128) ? SINGLE[input.charAt(start)] : null;
+            if (single != null) {
+                return single;
+            }
+        }
+        return input.substring(start, end);
+    }
+}
@@ -28,8 +28,19 @@ public class APCalendar {
      * 1 denotes Monday, ..., 
      * 6 denotes Saturday. 
      * firstDayOfYear(2019) returns 2 for Tuesday.
+     * Each year moves the weekday on by 1, leap years by 2, so from Monday 1 AD
+     * it is (1 + years before + leap years before) % 7, constant time for any year.
     */
     private static int firstDayOfYear(int year) {
+        if (year <= 1) {
+            return 1;    // 1 AD is a Monday
+        }
+        long before = year - 1;
+        return (int) ((1 + before + leapYearsThrough(before)) % 7);
+    }
+
+    /** Reference loop version of firstDayOfYear, linear in year, used by the tester */
+    private static int firstDayOfYearLoop(int year) {
         int day = 1;    // 1 AD is a Monday
 
         for (int i = 1; i < year; i++) {    
@@ -68,9 +79,24 @@ public class APCalendar {
 
     /** Returns the number of leap years between year1 and year2, inclusive.
      * Precondition: 0 <= year1 <= year2
+     * Counted in closed form as leap years through year2 minus leap years before year1.
     */ 
     public static int numberOfLeapYears(int year1, int year2) {
-        
+        if (year1 > year2) {
+            return 0;
+        }
+        return (int) (leapYearsThrough(year2) - leapYearsThrough(year1 - 1L));
+    }
+
+    /** Number of leap years from year 1 through year n, negative for n < 0 so differences
+     * still count the years in between. floorDiv keeps it exact below zero.
+    */
+    private static long leapYearsThrough(long n) {
+        return Math.floorDiv(n, 4) - Math.floorDiv(n, 100) + Math.floorDiv(n, 400);
+    }
+
+    /** Reference loop version of numberOfLeapYears, linear in the range, used by the tester */
+    private static int numberOfLeapYearsLoop(int year1, int year2) {
         int count = 0;
         for (int i=year1; i<=year2; i++) {
             if (isLeapYear(i)) {
@@ -115,5 +141,19 @@ public class APCalendar {
         System.out.println("dayOfWeek: " + APCalendar.dayOfWeek(1, 1, 2022));
         System.out.println("randomDate: " + APCalendar.randomDate());
         System.out.println("randomTime: " + APCalendar.randomTime());
+
+        // Closed form against the loop versions
+        int mismatches = 0;
+        for (int year = -500; year <= 5000; year++) {
+            if (firstDayOfYear(year) != firstDayOfYearLoop(year)) {
+                mismatches++;
+            }
+            if (numberOfLeapYears(year, year + 1234) != numberOfLeapYearsLoop(year, year + 1234)
+                    || numberOfLeapYears(0, year) != numberOfLeapYearsLoop(0, year)) {
+                mismatches++;
+            }
+        }
+        System.out.println("closed form mismatches: " + mismatches);
+        System.out.println("firstDayOfYear(2000000000): " + APCalendar.firstDayOfYear(2000000000));
     }
 }
\ No newline at end of file
@@ -1,55 +1,132 @@
 package com.nighthawk.spring_portfolio.mvc.calendar;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
 /** Calendar API
  * Calendar Endpoint: /api/calendar/isLeapYear/2022, Returns: {"year":2020,"isLeapYear":false}
+ * Range Endpoint: /api/calendar/range?years=2022, Returns: one getDate object per line (NDJSON)
  */
 @RestController
 @RequestMapping("/api/calendar")
 public class CalendarApiController {
 
+    // one full 400 year Gregorian cycle, the most days a range request may stream
+    public static final long MAX_RANGE_DAYS = 146097;
+
+    // Spring's shared mapper, used for its JsonFactory when streaming date ranges
+    @Autowired
+    private ObjectMapper mapper;
+
     /** GET isLeapYear endpoint
-     * ObjectMapper throws exceptions on bad JSON
-     *  @throws JsonProcessingException
-     *  @throws JsonMappingException
+     * Year is serialized once by Spring's shared mapper, see ExceptionHandlerAdvice for throws
      */
     @GetMapping("/isLeapYear/{year}")
-    public ResponseEntity<JsonNode> getIsLeapYear(@PathVariable int year) throws JsonMappingException, JsonProcessingException {
+    public ResponseEntity<Year> getIsLeapYear(@PathVariable int year) {
       // Backend Year Object
       Year year_obj = new Year();
       year_obj.setYear(year);  // evaluates Leap Year
 
-      // Turn Year Object into JSON
-      ObjectMapper mapper = new ObjectMapper(); 
-      JsonNode json = mapper.readTree(year_obj.isLeapYearToString()); // this requires exception handling
-
-      return ResponseEntity.ok(json);  // JSON response, see ExceptionHandlerAdvice for throws
+      return ResponseEntity.ok(year_obj);  // JSON response
     }
 
     // add method for getting all information about a date (day of week, leap year, etc)
     @GetMapping("/getDate/{year}/{month}/{day}")
-    public ResponseEntity<JsonNode> getDate(@PathVariable int year, @PathVariable int month, @PathVariable int day) throws JsonMappingException, JsonProcessingException {
+    public ResponseEntity<Date> getDate(@PathVariable int year, @PathVariable int month, @PathVariable int day) {
       // Backend Date Object
       Date date_obj = new Date();
       date_obj.setDate(year, month, day);  // evaluates Leap Year
 
-      // System.out.println(date_obj.getDateToString());
+      return ResponseEntity.ok(date_obj);  // JSON response, same fields as getDateToString()
+    }
+
+    /** GET range of dates streamed as NDJSON, one line per day with the same fields as getDate:
+     *   {"year":2022,"month":1,"day":1,"isLeapYear":false,"dayOfWeek":0,"dayOfYear":1}
+     * start, end: inclusive ISO dates, e.g. /range?start=2022-01-01&end=2022-12-31
+     * years: whole years instead, in the order given, e.g. /range?years=2022,2023
+     *        each within LocalDate's years (+/-999999999)
+     * Days are computed from the day before, only the first of each month is looked up.
+     * At most MAX_RANGE_DAYS days per request, 400 otherwise.
+     */
+    @GetMapping(value = "/range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getDateRange(@RequestParam(name = "start", required = false) String start,
+                                                              @RequestParam(name = "end", required = false) String end,
+                                                              @RequestParam(name = "years", required = false) List<Integer> years) {
+      // inclusive [first, last] pairs of year, month, day to walk through
+      final List<int[]> spans = new ArrayList<>();
+      long days = 0;
+      if (years != null && start == null && end == null) {
+        for (int year : years) {
+          // same years start/end accept, so the cursor never steps past Integer.MAX_VALUE
+          if (year < LocalDate.MIN.getYear() || year > LocalDate.MAX.getYear()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+          }
+          spans.add(new int[] {year, 1, 1, year, 12, 31});
+          days += APCalendar.daysInYear(year);
+        }
+      } else if (years == null && start != null && end != null) {
+        LocalDate from, to;
+        try {
+          from = LocalDate.parse(start);
+          to = LocalDate.parse(end);
+        } catch (DateTimeParseException e) {
+          return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (to.isBefore(from)) {
+          return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        spans.add(new int[] {from.getYear(), from.getMonthValue(), from.getDayOfMonth(),
+            to.getYear(), to.getMonthValue(), to.getDayOfMonth()});
+        days = to.toEpochDay() - from.toEpochDay() + 1;
+      } else {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);  // exactly one of start/end or years
+      }
+      if (days > MAX_RANGE_DAYS) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
 
-      // Turn Year Object into JSON
-      ObjectMapper mapper = new ObjectMapper(); 
-      JsonNode json = mapper.readTree(date_obj.getDateToString()); // this requires exception handling
+      StreamingResponseBody body = out -> {
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+          json.setRootValueSeparator(null);  // lines are separated explicitly below
+          for (int[] span : spans) {
+            DayCursor cursor = new DayCursor(span[0], span[1], span[2]);
+            while (!cursor.isAfter(span[3], span[4], span[5])) {
+              writeDay(json, cursor);
+              cursor.next();
+            }
+            json.flush();
+          }
+        }
+      };
+      return new ResponseEntity<>(body, HttpStatus.OK);
+    }
 
-      return ResponseEntity.ok(json);  // JSON response, see ExceptionHandlerAdvice for throws
+    private static void writeDay(JsonGenerator json, DayCursor cursor) throws IOException {
+      json.writeStartObject();
+      json.writeNumberField("year", cursor.getYear());
+      json.writeNumberField("month", cursor.getMonth());
+      json.writeNumberField("day", cursor.getDay());
+      json.writeBooleanField("isLeapYear", cursor.getIsLeapYear());
+      json.writeNumberField("dayOfWeek", cursor.getDayOfWeek());
+      json.writeNumberField("dayOfYear", cursor.getDayOfYear());
+      json.writeEndObject();
+      json.writeRaw('\n');
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.nighthawk.spring_portfolio.mvc.calendar;
+
+/** Precomputed APCalendar answers for a range of years
+ * Each year in the range is one byte: bit 3 is the leap flag, bits 0-2 the weekday base
+ * that APCalendar adds dayOfYear to. Month offsets depend only on the leap flag, so two
+ * short rows of cumulative days cover every year. Lookups in range are array reads,
+ * other years fall back to APCalendar's closed-form math. Answers are the same either way.
+ */
+public class CalendarTable {
+    private static final int LEAP = 1 << 3;
+    private static final int BASE_MASK = 0x7;
+
+    // days before each month (index 1-12) in APCalendar.dayOfYear, common year row then leap year row
+    private static final short[] MONTH_OFFSETS = new short[26];
+    static {
+        for (int month = 1; month <= 12; month++) {
+            MONTH_OFFSETS[month] = (short) (APCalendar.dayOfYear(month, 1, 2001) - 1);
+            MONTH_OFFSETS[13 + month] = (short) (APCalendar.dayOfYear(month, 1, 2000) - 1);
+        }
+    }
+
+    public static final int DEFAULT_FIRST_YEAR = 1600;
+    public static final int DEFAULT_LAST_YEAR = 2400;
+
+    // table used by Date and DayCursor, replaced at startup from application.properties by CalendarTableConfig
+    private static volatile CalendarTable defaultTable = new CalendarTable(DEFAULT_FIRST_YEAR, DEFAULT_LAST_YEAR);
+
+    private final int firstYear;
+    private final int lastYear;
+    private final byte[] years;
+
+    public CalendarTable(int firstYear, int lastYear) {
+        if (firstYear > lastYear || (long) lastYear - firstYear >= 10_000_000) {
+            throw new IllegalArgumentException("Calendar table years must be in order and span under 10,000,000 years");
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.years = new byte[lastYear - firstYear + 1];
+        for (int i = 0; i < years.length; i++) {
+            int year = firstYear + i;
+            // weekday base: dayOfWeek is (base + dayOfYear) % 7 and January 1 has dayOfYear 1
+            int base = Math.floorMod(APCalendar.dayOfWeek(1, 1, year) - 1, 7);
+            years[i] = (byte) ((APCalendar.isLeapYear(year) ? LEAP : 0) | base);
+        }
+    }
+
+    public static CalendarTable getDefault() {
+        return defaultTable;
+    }
+
+    public static void setDefault(CalendarTable table) {
+        defaultTable = table;
+    }
+
+    public boolean contains(int year) {
+        return year >= firstYear && year <= lastYear;
+    }
+
+    /* Same as APCalendar.isLeapYear */
+    public boolean isLeapYear(int year) {
+        if (!contains(year)) {
+            return APCalendar.isLeapYear(year);
+        }
+        return (years[year - firstYear] & LEAP) != 0;
+    }
+
+    /* Same as APCalendar.dayOfYear */
+    public int dayOfYear(int month, int day, int year) {
+        if (!contains(year) || month < 1 || month > 12) {
+            return APCalendar.dayOfYear(month, day, year);
+        }
+        int row = (years[year - firstYear] & LEAP) != 0 ? 13 : 0;
+        return MONTH_OFFSETS[row + month] + day;
+    }
+
+    /* Same as APCalendar.dayOfWeek */
+    public int dayOfWeek(int month, int day, int year) {
+        if (!contains(year) || month < 1 || month > 12) {
+            return APCalendar.dayOfWeek(month, day, year);
+        }
+        return ((years[year - firstYear] & BASE_MASK) + dayOfYear(month, day, year)) % 7;
+    }
+
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    public int getLastYear() {
+        return lastYear;
+    }
+
+    public static void main(String[] args) {
+        // every table answer against APCalendar, including days outside the month as Date accepts them
+        CalendarTable table = getDefault();
+        int mismatches = 0;
+        for (int year = table.getFirstYear() - 10; year <= table.getLastYear() + 10; year++) {
+            if (table.isLeapYear(year) != APCalendar.isLeapYear(year)) {
+                mismatches++;
+            }
+            for (int month = 0; month <= 13; month++) {
+                for (int day = -1; day <= 32; day++) {
+                    if (table.dayOfYear(month, day, year) != APCalendar.dayOfYear(month, day, year)
+                            || table.dayOfWeek(month, day, year) != APCalendar.dayOfWeek(month, day, year)) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        System.out.println("years " + table.getFirstYear() + "-" + table.getLastYear() + ", mismatches: " + mismatches);
+    }
+}
@@ -0,0 +1,16 @@
+package com.nighthawk.spring_portfolio.mvc.calendar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/** Builds CalendarTable's default table from application.properties at startup
+ * calendar.table.first-year / calendar.table.last-year, 1600-2400 when not set
+ */
+@Component
+public class CalendarTableConfig {
+
+    public CalendarTableConfig(@Value("${calendar.table.first-year:1600}") int firstYear,
+                               @Value("${calendar.table.last-year:2400}") int lastYear) {
+        CalendarTable.setDefault(new CalendarTable(firstYear, lastYear));
+    }
+}
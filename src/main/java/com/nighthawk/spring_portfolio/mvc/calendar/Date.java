@@ -1,17 +1,29 @@
 package com.nighthawk.spring_portfolio.mvc.calendar;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 /** Simple POJO 
  * Used to Interface with APCalendar
- * The toString method(s) prepares object for JSON serialization
+ * Returned directly by the API, Jackson serializes the annotated fields in getDateToString() order
  * Note... this is NOT an entity, just an abstraction
  */
-
+@JsonAutoDetect(getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+@JsonPropertyOrder({"year", "month", "day", "isLeapYear", "dayOfWeek", "dayOfYear"})
 class Date {
+      @JsonProperty("year")
       private int year;
+      @JsonProperty("month")
       private int month;
+      @JsonProperty("day")
       private int day;
+      @JsonProperty("dayOfWeek")
       private int dayOfWeek;
+      @JsonProperty("dayOfYear")
       private int dayOfYear;
+      @JsonProperty("isLeapYear")
       private boolean isLeapYear;
    
       public Date() {
@@ -32,6 +44,7 @@ class Date {
          this.isLeapYear = false;
       }
    
+      /* leap year, day of week and day of year are array reads for years in CalendarTable.getDefault() */
       public void setDate(int year, int month, int day) {
          this.year = year;
          this.month = month;
@@ -42,15 +55,15 @@ class Date {
       }
 
       public void setIsLeapYear(int year) {
-         this.isLeapYear = APCalendar.isLeapYear(year);
+         this.isLeapYear = CalendarTable.getDefault().isLeapYear(year);
       }
 
       public void setDayofWeek(int year, int month, int day) {
-         this.dayOfWeek = APCalendar.dayOfWeek(month, day, year);
+         this.dayOfWeek = CalendarTable.getDefault().dayOfWeek(month, day, year);
       }
 
       public void setDayofYear(int year, int month, int day) {
-         this.dayOfYear = APCalendar.dayOfYear(month, day, year);
+         this.dayOfYear = CalendarTable.getDefault().dayOfYear(month, day, year);
       }
 
       /* isLeapYearToString formatted to be mapped to JSON */
@@ -0,0 +1,118 @@
+package com.nighthawk.spring_portfolio.mvc.calendar;
+
+/** Walks the calendar one day at a time
+ * Gives the same dayOfWeek, dayOfYear and isLeapYear as APCalendar for every date,
+ * but only looks up the start of each month (in CalendarTable), the days in between are carried forward.
+ * Note... this is NOT an entity, just an abstraction
+ */
+class DayCursor {
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private int year;
+    private int month;
+    private int day;
+    private int dayOfWeek;
+    private int dayOfYear;
+    private boolean isLeapYear;
+
+    /* Cursor on year/month/day, IllegalArgumentException if that is not a date */
+    public DayCursor(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid date " + year + "/" + month + "/" + day);
+        }
+        this.year = year;
+        this.isLeapYear = APCalendar.isLeapYear(year);
+        this.day = day;
+        startMonth(month);
+        // within the month each day is one more than the first
+        this.dayOfYear += day - 1;
+        this.dayOfWeek = (this.dayOfWeek + day - 1) % 7;
+    }
+
+    /* Move to the next day */
+    public void next() {
+        if (day < daysInMonth(year, month)) {
+            day++;
+            dayOfYear++;
+            dayOfWeek = (dayOfWeek + 1) % 7;
+            return;
+        }
+        day = 1;
+        if (month == 12) {
+            if (year == Integer.MAX_VALUE) {
+                throw new IllegalStateException("No year after " + year);  // would wrap to Integer.MIN_VALUE
+            }
+            year++;
+            isLeapYear = APCalendar.isLeapYear(year);
+            startMonth(1);
+        } else {
+            startMonth(month + 1);
+        }
+    }
+
+    /* true if the cursor is past year/month/day */
+    public boolean isAfter(int year, int month, int day) {
+        if (this.year != year) {
+            return this.year > year;
+        }
+        if (this.month != month) {
+            return this.month > month;
+        }
+        return this.day > day;
+    }
+
+    // APCalendar values for the first of the month
+    private void startMonth(int month) {
+        this.month = month;
+        this.dayOfYear = CalendarTable.getDefault().dayOfYear(month, 1, year);
+        this.dayOfWeek = CalendarTable.getDefault().dayOfWeek(month, 1, year);
+    }
+
+    public static int daysInMonth(int year, int month) {
+        if (month == 2 && APCalendar.isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public int getDayOfYear() {
+        return dayOfYear;
+    }
+
+    public boolean getIsLeapYear() {
+        return isLeapYear;
+    }
+
+    public static void main(String[] args) {
+        // every day from 1900 through 2100 against APCalendar
+        DayCursor cursor = new DayCursor(1900, 1, 1);
+        int days = 0, mismatches = 0;
+        while (!cursor.isAfter(2100, 12, 31)) {
+            int y = cursor.getYear(), m = cursor.getMonth(), d = cursor.getDay();
+            if (cursor.getDayOfWeek() != APCalendar.dayOfWeek(m, d, y)
+                    || cursor.getDayOfYear() != APCalendar.dayOfYear(m, d, y)
+                    || cursor.getIsLeapYear() != APCalendar.isLeapYear(y)) {
+                mismatches++;
+            }
+            days++;
+            cursor.next();
+        }
+        System.out.println(days + " days, mismatches: " + mismatches);
+    }
+}
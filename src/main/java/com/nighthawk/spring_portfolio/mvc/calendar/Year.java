@@ -1,12 +1,21 @@
 package com.nighthawk.spring_portfolio.mvc.calendar;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 /** Simple POJO 
  * Used to Interface with APCalendar
- * The toString method(s) prepares object for JSON serialization
+ * Returned directly by the API, Jackson serializes the annotated fields: {"year":2022,"isLeapYear":false}
  * Note... this is NOT an entity, just an abstraction
  */
+@JsonAutoDetect(getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+@JsonPropertyOrder({"year", "isLeapYear"})
 class Year {
+   @JsonProperty("year")
    private int year;
+   @JsonProperty("isLeapYear")
    private boolean isLeapYear;
 
    // zero argument constructor
@@ -0,0 +1,459 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/* Bit-packed Game of Life board
+    - on/off state is stored 64 cells per long, row major, each row padded to a whole number of words
+    - neighbor counts for 64 cells are computed at once with bitwise adders, no per cell branching
+    - edges wrap around (torus), the same neighborhood LightBoard uses
+    - colors and effects live in one primitive int per cell, Light's packed form without the on bit,
+      Light objects are only built on request
+    - stepSparse() only recomputes words next to a word that changed, for mostly static boards
+    - any Life-like rule runs through the same kernel, see LifeRule
+ */
+public class BitBoard {
+    private final int rows;
+    private final int cols;
+    private final int words;        // longs per row
+    private final long lastMask;    // valid bits of the last word in a row
+
+    private long[] cells;           // current generation
+    private long[] next;            // scratch for the generation being computed, swapped each step
+
+    // sparse stepping: one bit per word that must be recomputed next step, null means every word
+    private long[] active;
+    private long[] nextActive;
+
+    private final int[] styles;     // color and effect per cell as packed by Light, row major
+
+    // fingerprint, XOR of mix(index, word) over all words, updated as words change
+    private long hash;
+    private boolean hashed = true;  // false once cells() was handed out, recomputed on the next fingerprint()
+
+    private LifeRule rule = LifeRule.CONWAY;
+
+    public BitBoard(int rows, int cols) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.words = (cols + 63) >>> 6;
+        this.lastMask = (cols % 64 == 0) ? -1L : (1L << (cols % 64)) - 1;
+        this.cells = new long[rows * words];
+        this.next = new long[rows * words];
+        this.styles = new int[rows * cols];
+    }
+
+    /* Pack a LightBoard, copying on/off state, colors and effects */
+    public static BitBoard from(LightBoard lightBoard) {
+        Light[][] lights = lightBoard.getLights();
+        BitBoard board = new BitBoard(lights.length, lights[0].length);
+        for (int row = 0; row < board.rows; row++) {
+            for (int col = 0; col < board.cols; col++) {
+                Light light = lights[row][col];
+                board.set(row, col, light.getOn());
+                board.styles[row * board.cols + col] = light.packed() & ~Light.ON;
+            }
+        }
+        return board;
+    }
+
+    /* Unpack into a new LightBoard with its own Light objects */
+    public LightBoard toLightBoard() {
+        Light[][] lights = new Light[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                lights[row][col] = new Light(styles[row * cols + col] | (get(row, col) ? Light.ON : 0));
+            }
+        }
+        return new LightBoard(lights);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    public void setRule(LifeRule rule) {
+        this.rule = rule;
+        active = null;  // every word may react differently now
+    }
+
+    public boolean get(int row, int col) {
+        return (cells[row * words + (col >>> 6)] & (1L << col)) != 0;  // shift uses the low 6 bits of col
+    }
+
+    public void set(int row, int col, boolean on) {
+        active = null;  // outside change, next sparse step recomputes everything
+        int index = row * words + (col >>> 6);
+        long old = cells[index];
+        if (on) {
+            cells[index] |= (1L << col);
+        } else {
+            cells[index] &= ~(1L << col);
+        }
+        hash ^= mix(index, old) ^ mix(index, cells[index]);
+    }
+
+    /* Number of live cells */
+    public int population() {
+        int count = 0;
+        for (long word : cells) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Current on/off words and cell styles without copying, for BoardSnapshot
+    // callers may write the words, so the fingerprint is recomputed afterwards
+    long[] cells() {
+        hashed = false;
+        return cells;
+    }
+
+    int[] styles() {
+        return styles;
+    }
+
+    /* Copy of the packed on/off words, to compare a later generation against with changedSince() */
+    public long[] copyCells() {
+        return cells.clone();
+    }
+
+    /* Cell indices (row * cols + col) that flipped since previous, a copyCells() result,
+     * in ascending order. previous is updated to the current cells for the next call.
+     */
+    public int[] changedSince(long[] previous) {
+        int count = 0;
+        for (int i = 0; i < cells.length; i++) {
+            count += Long.bitCount(cells[i] ^ previous[i]);
+        }
+        int[] changed = new int[count];
+        int n = 0;
+        for (int i = 0; i < cells.length && n < count; i++) {
+            long bits = cells[i] ^ previous[i];
+            int row = i / words;
+            int base = row * cols + ((i - row * words) << 6);
+            while (bits != 0) {
+                changed[n++] = base + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        System.arraycopy(cells, 0, previous, 0, cells.length);
+        return changed;
+    }
+
+    /* 64 bit hash of the on/off state, equal boards always hash equal
+     * Kept up to date by every step and set(), so this is O(1) instead of a pass over the board.
+     */
+    public long fingerprint() {
+        if (!hashed) {
+            hash = 0;
+            for (int index = 0; index < cells.length; index++) {
+                hash ^= mix(index, cells[index]);
+            }
+            hashed = true;
+        }
+        return hash;
+    }
+
+    // Hash term of one word, 0 for an empty word so only live words contribute
+    // (splitmix64 finalizer, one to one for a given index, so a changed word always changes its term)
+    private static long mix(int index, long word) {
+        if (word == 0) {
+            return 0;
+        }
+        long z = word + index * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /* True if the on/off state equals cells, a copyCells() result */
+    public boolean sameCells(long[] cells) {
+        return Arrays.equals(this.cells, cells);
+    }
+
+    /* Advance one generation, every cell sees its neighbors from the previous generation */
+    public void step() {
+        hash ^= stepRows(0, rows);
+        swap();
+        active = null;
+    }
+
+    /* Advance one generation, only recomputing words whose neighborhood changed last generation
+     * A word's next value depends only on its 3 x 66 cell neighborhood, so if no word around it
+     * changed, it keeps its value. Skipped words need no copy either: they did not change last
+     * step, so the buffer being written already holds the same value from the step before.
+     * Cost follows the number of changing words instead of the board area.
+     */
+    public void stepSparse() {
+        int total = rows * words;
+        if (nextActive == null) {
+            nextActive = new long[(total + 63) >>> 6];
+        }
+        Arrays.fill(nextActive, 0L);
+        if (active == null) {
+            // everything is dirty, compute all words once and start tracking from there
+            for (int index = 0; index < total; index++) {
+                computeSparse(index);
+            }
+        } else {
+            for (int i = 0; i < active.length; i++) {
+                long bits = active[i];
+                while (bits != 0) {
+                    computeSparse((i << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        swap();
+        // words marked while computing become the work list of the next step
+        long[] previous = active;
+        active = nextActive;
+        nextActive = (previous != null) ? previous : new long[active.length];
+    }
+
+    // Compute one word into next and mark the words whose neighborhood it changed
+    private void computeSparse(int index) {
+        int row = index / words;
+        int w = index - row * words;
+        long value = nextWord(row, w);
+        long changed = value ^ cells[index];
+        next[index] = value;
+        if (changed == 0) {
+            return;
+        }
+        hash ^= mix(index, cells[index]) ^ mix(index, value);
+        int up = (row == 0) ? rows - 1 : row - 1;
+        int down = (row == rows - 1) ? 0 : row + 1;
+        markColumn(up, down, row, w);
+        // edge cells also feed the words to the west and east
+        if ((changed & 1L) != 0) {
+            markColumn(up, down, row, (w == 0) ? words - 1 : w - 1);
+        }
+        int lastBit = (w == words - 1) ? (cols - 1) & 63 : 63;
+        if ((changed >>> lastBit) != 0) {
+            markColumn(up, down, row, (w == words - 1) ? 0 : w + 1);
+        }
+    }
+
+    private void markColumn(int up, int down, int row, int w) {
+        mark(up * words + w);
+        mark(row * words + w);
+        mark(down * words + w);
+    }
+
+    private void mark(int index) {
+        nextActive[index >>> 6] |= 1L << index;
+    }
+
+    /* Words that the next sparse step will recompute, -1 when every word is dirty */
+    public int activeWords() {
+        if (active == null) {
+            return -1;
+        }
+        int count = 0;
+        for (long bits : active) {
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /* Advance one generation with row bands computed in parallel on pool
+     * Bands only read the current buffer and only write their own rows of the next buffer,
+     * so the halo rows above and below a band are shared without copying or locking.
+     */
+    public void step(ForkJoinPool pool) {
+        int bands = pool.getParallelism() * 4;  // a few bands per worker evens out scheduling
+        int bandRows = Math.max(1, (rows + bands - 1) / bands);
+        hash ^= pool.invoke(new RowBand(0, rows, bandRows));
+        swap();
+        active = null;
+    }
+
+    // Compute rows [from, to) of the next generation, returns the change to hash for those rows
+    private long stepRows(int from, int to) {
+        long delta = 0;
+        for (int row = from; row < to; row++) {
+            for (int w = 0; w < words; w++) {
+                int index = row * words + w;
+                long value = nextWord(row, w);
+                if (value != cells[index]) {
+                    delta ^= mix(index, cells[index]) ^ mix(index, value);
+                }
+                next[index] = value;
+            }
+        }
+        return delta;
+    }
+
+    // Splits the board in halves until a band is at most bandRows tall, hash changes are XORed back up
+    private class RowBand extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int bandRows;
+
+        RowBand(int from, int to, int bandRows) {
+            this.from = from;
+            this.to = to;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= bandRows) {
+                return stepRows(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RowBand top = new RowBand(from, middle, bandRows);
+            RowBand bottom = new RowBand(middle, to, bandRows);
+            invokeAll(top, bottom);
+            return top.join() ^ bottom.join();
+        }
+    }
+
+    /* Advance several generations */
+    public void step(int generations) {
+        for (int i = 0; i < generations; i++) {
+            step();
+        }
+    }
+
+    private void swap() {
+        long[] previous = cells;
+        cells = next;
+        next = previous;
+    }
+
+    /* Next generation for the 64 cells of one word
+     * Each neighbor direction is a bitmap aligned with the word, the eight bitmaps are summed
+     * with carry-save adders into a per-bit count n = s0 + 2*s1 + 4*s2 + 8*s3, which is then
+     * matched against the rule's compiled terms.
+     */
+    long nextWord(int row, int w) {
+        int up = ((row == 0) ? rows - 1 : row - 1) * words;
+        int mid = row * words;
+        int down = ((row == rows - 1) ? 0 : row + 1) * words;
+
+        long alive = cells[mid + w];
+        long upW = west(up, w), upC = cells[up + w], upE = east(up, w);
+        long midW = west(mid, w), midE = east(mid, w);
+        long downW = west(down, w), downC = cells[down + w], downE = east(down, w);
+
+        // ones: add each row of neighbors, carries have weight 2
+        long upSum = upW ^ upC ^ upE;
+        long upCarry = (upW & upC) | (upE & (upW ^ upC));
+        long midSum = midW ^ midE;
+        long midCarry = midW & midE;
+        long downSum = downW ^ downC ^ downE;
+        long downCarry = (downW & downC) | (downE & (downW ^ downC));
+        long s0 = upSum ^ midSum ^ downSum;
+        long onesCarry = (upSum & midSum) | (downSum & (upSum ^ midSum));
+
+        // twos: four carries of weight 2
+        long p = upCarry ^ midCarry, pCarry = upCarry & midCarry;
+        long q = downCarry ^ onesCarry, qCarry = downCarry & onesCarry;
+        long s1 = p ^ q;
+        long pq = p & q;   // pCarry and qCarry imply p and q are clear, so at most two of these are set
+        long s2 = pq ^ pCarry ^ qCarry;
+        long s3 = pCarry & qCarry;
+
+        // a cell is on if any term matches its count bits, and its alive bit where that matters
+        long[] terms = rule.terms;
+        long result = 0;
+        for (int t = 0; t < terms.length; t += LifeRule.TERM_LONGS) {
+            long miss = (s0 ^ terms[t]) | (s1 ^ terms[t + 1]) | (s2 ^ terms[t + 2]) | (s3 ^ terms[t + 3])
+                | ((alive ^ terms[t + 4]) & terms[t + 5]);
+            result |= ~miss;
+        }
+        return (w == words - 1) ? result & lastMask : result;
+    }
+
+    // Bitmap of each cell's west neighbor (col - 1), wrapping column 0 to the last column
+    private long west(int base, int w) {
+        long carry = (w > 0)
+            ? cells[base + w - 1] >>> 63
+            : (cells[base + words - 1] >>> ((cols - 1) & 63)) & 1L;
+        return (cells[base + w] << 1) | carry;
+    }
+
+    // Bitmap of each cell's east neighbor (col + 1), wrapping the last column to column 0
+    private long east(int base, int w) {
+        long carry = (w < words - 1)
+            ? cells[base + w + 1] << 63
+            : (cells[base] & 1L) << ((cols - 1) & 63);
+        return (cells[base + w] >>> 1) | carry;
+    }
+
+    /* Rows of O (on) and X (off), same layout as LightBoard.displayLife() */
+    public String toDisplayString() {
+        StringBuilder out = new StringBuilder(rows * (cols + 1));
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                out.append(get(row, col) ? 'O' : 'X');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    static public void main(String[] args) {
+        // glider on a small board
+        BitBoard board = new BitBoard(6, 6);
+        board.set(0, 1, true);
+        board.set(1, 2, true);
+        board.set(2, 0, true);
+        board.set(2, 1, true);
+        board.set(2, 2, true);
+        for (int i = 0; i < 4; i++) {
+            System.out.println("Generation " + i);
+            System.out.println(board.toDisplayString());
+            board.step();
+        }
+
+        // large board timing
+        int size = 4096;
+        BitBoard large = new BitBoard(size, size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                large.set(row, col, Math.random() < 0.5);
+            }
+        }
+        long start = System.nanoTime();
+        large.step(10);
+        System.out.println(size + "x" + size + " ms per generation: " + (System.nanoTime() - start) / 10 / 1_000_000.0);
+        start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            large.step(ForkJoinPool.commonPool());
+        }
+        System.out.println(size + "x" + size + " ms per parallel generation: " + (System.nanoTime() - start) / 10 / 1_000_000.0);
+
+        // a lone glider on a large empty board, sparse stepping only visits the words around it
+        BitBoard sparse = new BitBoard(size, size);
+        sparse.set(0, 1, true);
+        sparse.set(1, 2, true);
+        sparse.set(2, 0, true);
+        sparse.set(2, 1, true);
+        sparse.set(2, 2, true);
+        sparse.stepSparse();
+        start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            sparse.stepSparse();
+        }
+        System.out.println(size + "x" + size + " glider ms per sparse generation: " + (System.nanoTime() - start) / 1000 / 1_000_000.0
+            + ", active words: " + sparse.activeWords());
+    }
+}
@@ -0,0 +1,148 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Binary BitBoard file, read and written through memory mapped FileChannels
+    header   int magic "LBRD", int version, int rows, int cols
+    cells    rows x ceil(cols / 64) longs, BitBoard's packed on/off words, row major
+    styles   rows x cols ints, color and effect per cell in Light's packed form
+   Big endian, a 4096x4096 board is 2 MB of cells plus 64 MB of styles.
+   Files are mapped in regions of at most 1 GB, so boards past the 2 GB mapping limit still work.
+ */
+public class BoardSnapshot {
+    public static final int MAGIC = 0x4C425244;  // "LBRD"
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long REGION_BYTES = 1L << 30;
+
+    private BoardSnapshot() {
+    }
+
+    /* Write board to path, replacing any existing file */
+    public static void write(BitBoard board, Path path) throws IOException {
+        long[] cells = board.cells();
+        int[] styles = board.styles();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(board.getRows()).putInt(board.getCols());
+            header.force();
+            long position = HEADER_BYTES;
+            for (int from = 0; from < cells.length; ) {
+                int count = (int) Math.min(cells.length - from, REGION_BYTES / 8);
+                MappedByteBuffer region = channel.map(MapMode.READ_WRITE, position, count * 8L);
+                region.asLongBuffer().put(cells, from, count);
+                region.force();
+                from += count;
+                position += count * 8L;
+            }
+            for (int from = 0; from < styles.length; ) {
+                int count = (int) Math.min(styles.length - from, REGION_BYTES / 4);
+                MappedByteBuffer region = channel.map(MapMode.READ_WRITE, position, count * 4L);
+                region.asIntBuffer().put(styles, from, count);
+                region.force();
+                from += count;
+                position += count * 4L;
+            }
+        }
+    }
+
+    /* Bytes of a snapshot of a rows x cols board */
+    public static long length(int rows, int cols) {
+        return HEADER_BYTES + (long) rows * ((cols + 63) >>> 6) * 8 + (long) rows * cols * 4;
+    }
+
+    /* {rows, cols} from the header only, so a board's size can be checked before reading it */
+    public static int[] readSize(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return header(channel);
+        }
+    }
+
+    /* Read a board written by write(), IOException if the file is not a valid snapshot */
+    public static BitBoard read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int[] size = header(channel);
+            int rows = size[0];
+            int cols = size[1];
+            int words = (cols + 63) >>> 6;
+            if (channel.size() != length(rows, cols)) {
+                throw new IOException("Snapshot length does not match " + rows + "x" + cols);
+            }
+
+            BitBoard board = new BitBoard(rows, cols);
+            long[] cells = board.cells();
+            int[] styles = board.styles();
+            long position = HEADER_BYTES;
+            for (int from = 0; from < cells.length; ) {
+                int count = (int) Math.min(cells.length - from, REGION_BYTES / 8);
+                channel.map(MapMode.READ_ONLY, position, count * 8L).asLongBuffer().get(cells, from, count);
+                from += count;
+                position += count * 8L;
+            }
+            for (int from = 0; from < styles.length; ) {
+                int count = (int) Math.min(styles.length - from, REGION_BYTES / 4);
+                channel.map(MapMode.READ_ONLY, position, count * 4L).asIntBuffer().get(styles, from, count);
+                from += count;
+                position += count * 4L;
+            }
+            check(cells, styles, words, cols);
+            return board;
+        }
+    }
+
+    private static int[] header(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Not a lightboard snapshot: too short");
+        }
+        ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a lightboard snapshot: bad magic");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int rows = header.getInt();
+        int cols = header.getInt();
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IOException("Bad snapshot size " + rows + "x" + cols);
+        }
+        return new int[] { rows, cols };
+    }
+
+    // Padding bits past the last column must be clear, and styles must be valid Light values
+    private static void check(long[] cells, int[] styles, int words, int cols) throws IOException {
+        long lastMask = (cols % 64 == 0) ? -1L : (1L << (cols % 64)) - 1;
+        for (int i = words - 1; i < cells.length; i += words) {
+            if ((cells[i] & ~lastMask) != 0) {
+                throw new IOException("Snapshot has cells past the last column");
+            }
+        }
+        for (int style : styles) {
+            if ((style & ~(Light.RGB_MASK | (0xF << Light.EFFECT_SHIFT))) != 0 || (style >>> Light.EFFECT_SHIFT) > 9) {
+                throw new IOException("Snapshot has an invalid color or effect");
+            }
+        }
+    }
+
+    static public void main(String[] args) throws IOException {
+        // round trip a random board through a temporary file
+        BitBoard board = BitBoard.from(new LightBoard(40, 70));
+        board.step(3);
+        Path path = Files.createTempFile("lightboard", ".lbrd");
+        write(board, path);
+        BitBoard loaded = read(path);
+        System.out.println("Bytes: " + Files.size(path));
+        System.out.println("Same cells: " + board.toDisplayString().equals(loaded.toDisplayString()));
+        System.out.println("Same lights: " + board.toLightBoard().toString().equals(loaded.toLightBoard().toString()));
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,302 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/* Hashlife, memoized quadtree Game of Life
+    - the board is a quadtree of hash-consed nodes, equal regions are one shared Node instance
+    - each node memoizes its center advanced 2^j generations, so repeated regions and repeated
+      states are computed once and large generation counts cost about log(generations) passes
+   LightBoard wraps at its edges, so the board is treated as one tile of an infinite periodic plane.
+   A window of that plane at quadtree level m holds at most rows x cols distinct nodes per level
+   (one per offset), and its center after 2^j generations (j <= m-2) is exactly the torus
+   advanced 2^j generations, because nothing outside the window can reach the center in time.
+   Every pass rebuilds its window from the board, so between passes the node table can be dropped:
+   once it holds more than maxNodes nodes it is cleared, bounding memory on long varied runs.
+ */
+public class HashLife {
+
+    // Quadtree node, level 0 is a single cell, level k covers 2^k x 2^k cells
+    private static final class Node {
+        final Node nw, ne, sw, se;
+        final int level;
+        final boolean alive;     // level 0 only
+        final int hash;
+        Node[] results;          // results[j] = center advanced 2^j generations, filled lazily
+
+        Node(boolean alive) {
+            this.nw = this.ne = this.sw = this.se = null;
+            this.level = 0;
+            this.alive = alive;
+            this.hash = alive ? 1 : 0;
+        }
+
+        Node(Node nw, Node ne, Node sw, Node se) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            this.level = nw.level + 1;
+            this.alive = false;
+            // children are canonical, so identity hashes identify their content
+            int h = System.identityHashCode(nw);
+            h = 31 * h + System.identityHashCode(ne);
+            h = 31 * h + System.identityHashCode(sw);
+            this.hash = 31 * h + System.identityHashCode(se);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Node)) {
+                return false;
+            }
+            Node node = (Node) other;
+            return nw == node.nw && ne == node.ne && sw == node.sw && se == node.se && alive == node.alive;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final Node DEAD = new Node(false);
+    private static final Node LIVE = new Node(true);
+
+    // nodes kept between passes, about 100 bytes each with their memoized results
+    public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+    // intern table, hash-consing makes equal regions the same instance
+    private final Map<Node, Node> canonical = new HashMap<>();
+    private int maxNodes = DEFAULT_MAX_NODES;
+
+    // memoized results are only valid for this rule
+    private final LifeRule rule;
+
+    public HashLife() {
+        this(LifeRule.CONWAY);
+    }
+
+    public HashLife(LifeRule rule) {
+        this.rule = rule;
+    }
+
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /* Node count past which the table is cleared before the next pass, memoized results are recomputed as needed */
+    public void setMaxNodes(int maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("Max nodes must be positive");
+        }
+        this.maxNodes = maxNodes;
+    }
+
+    // Canonical node for four children
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        Node candidate = new Node(nw, ne, sw, se);
+        Node existing = canonical.putIfAbsent(candidate, candidate);
+        return (existing != null) ? existing : candidate;
+    }
+
+    // Center half of a node, level - 1
+    private Node center(Node node) {
+        return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    /* Center of a level k node (k >= 2) advanced 2^j generations, 0 <= j <= k-2, result is level k-1 */
+    private Node successor(Node node, int j) {
+        if (node.results == null) {
+            node.results = new Node[node.level - 1];
+        }
+        if (node.results[j] != null) {
+            return node.results[j];
+        }
+
+        Node result;
+        if (node.level == 2) {
+            result = baseCase(node);
+        } else {
+            // nine overlapping sub-squares, level k-1
+            Node n00 = node.nw;
+            Node n01 = join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+            Node n02 = node.ne;
+            Node n10 = join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+            Node n11 = join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+            Node n12 = join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+            Node n20 = node.sw;
+            Node n21 = join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+            Node n22 = node.se;
+
+            int half = node.level - 3;   // step exponent of the first half at full speed
+            Node c00, c01, c02, c10, c11, c12, c20, c21, c22;
+            int second;
+            if (j == node.level - 2) {
+                // full speed, two rounds of 2^(k-3) generations each
+                c00 = successor(n00, half); c01 = successor(n01, half); c02 = successor(n02, half);
+                c10 = successor(n10, half); c11 = successor(n11, half); c12 = successor(n12, half);
+                c20 = successor(n20, half); c21 = successor(n21, half); c22 = successor(n22, half);
+                second = half;
+            } else {
+                // slower than full speed, first round only recenters, second round advances 2^j
+                c00 = center(n00); c01 = center(n01); c02 = center(n02);
+                c10 = center(n10); c11 = center(n11); c12 = center(n12);
+                c20 = center(n20); c21 = center(n21); c22 = center(n22);
+                second = j;
+            }
+            result = join(
+                successor(join(c00, c01, c10, c11), second),
+                successor(join(c01, c02, c11, c12), second),
+                successor(join(c10, c11, c20, c21), second),
+                successor(join(c11, c12, c21, c22), second));
+        }
+        node.results[j] = result;
+        return result;
+    }
+
+    // 4x4 cells to the center 2x2 one generation later
+    private Node baseCase(Node node) {
+        boolean[][] cells = new boolean[4][4];
+        Node[][] quadrants = { { node.nw, node.ne }, { node.sw, node.se } };
+        for (int qy = 0; qy < 2; qy++) {
+            for (int qx = 0; qx < 2; qx++) {
+                Node quadrant = quadrants[qy][qx];
+                cells[qy * 2][qx * 2] = quadrant.nw.alive;
+                cells[qy * 2][qx * 2 + 1] = quadrant.ne.alive;
+                cells[qy * 2 + 1][qx * 2] = quadrant.sw.alive;
+                cells[qy * 2 + 1][qx * 2 + 1] = quadrant.se.alive;
+            }
+        }
+        Node[] next = new Node[4];
+        for (int y = 1; y <= 2; y++) {
+            for (int x = 1; x <= 2; x++) {
+                int neighbors = 0;
+                for (int i = -1; i <= 1; i++) {
+                    for (int k = -1; k <= 1; k++) {
+                        if ((i != 0 || k != 0) && cells[y + i][x + k]) {
+                            neighbors++;
+                        }
+                    }
+                }
+                next[(y - 1) * 2 + (x - 1)] = rule.next(cells[y][x], neighbors) ? LIVE : DEAD;
+            }
+        }
+        return join(next[0], next[1], next[2], next[3]);
+    }
+
+    /* Advance board in place by generations, using the same wrap-around neighborhood as BitBoard */
+    public void advance(BitBoard board, long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must not be negative");
+        }
+        // smallest level whose half can hold a whole tile
+        int minLevel = 2;
+        while ((1L << (minLevel - 1)) < Math.max(board.getRows(), board.getCols())) {
+            minLevel++;
+        }
+        // one pass per set bit, each pass advances 2^j generations
+        for (int j = 0; j < 63; j++) {
+            if ((generations & (1L << j)) != 0) {
+                if (canonical.size() > maxNodes) {
+                    canonical.clear();  // nothing outlives a pass but the board, old nodes become garbage
+                }
+                int level = Math.max(j + 2, minLevel);
+                Node window = window(board, level);
+                Node result = successor(window, j);
+                extract(board, result, level);
+            }
+        }
+    }
+
+    // Level m window of the periodic plane whose tile is board, window origin at cell (0, 0)
+    private Node window(BitBoard board, int level) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        // offset of each level's half size within a tile, halves reach 2^62 so reduce as we go
+        long[] halfCol = new long[level + 1];
+        long[] halfRow = new long[level + 1];
+        for (int l = 1; l <= level; l++) {
+            halfCol[l] = (l == 1) ? 1 % cols : (halfCol[l - 1] * 2) % cols;
+            halfRow[l] = (l == 1) ? 1 % rows : (halfRow[l - 1] * 2) % rows;
+        }
+        // nodes by level and tile offset, a window has at most rows x cols distinct nodes per level
+        Map<Long, Node> memo = new HashMap<>();
+        return window(board, level, 0, 0, halfCol, halfRow, memo);
+    }
+
+    private Node window(BitBoard board, int level, int col, int row, long[] halfCol, long[] halfRow, Map<Long, Node> memo) {
+        if (level == 0) {
+            return board.get(row, col) ? LIVE : DEAD;
+        }
+        long key = ((long) level << 52) | ((long) row << 26) | col;
+        Node node = memo.get(key);
+        if (node == null) {
+            int eastCol = (int) ((col + halfCol[level]) % board.getCols());
+            int southRow = (int) ((row + halfRow[level]) % board.getRows());
+            node = join(
+                window(board, level - 1, col, row, halfCol, halfRow, memo),
+                window(board, level - 1, eastCol, row, halfCol, halfRow, memo),
+                window(board, level - 1, col, southRow, halfCol, halfRow, memo),
+                window(board, level - 1, eastCol, southRow, halfCol, halfRow, memo));
+            memo.put(key, node);
+        }
+        return node;
+    }
+
+    // Copy one tile out of a result node, which covers the window center starting at 2^(m-2)
+    private void extract(BitBoard board, Node result, int level) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        long quarterCol = 1 % cols, quarterRow = 1 % rows;
+        for (int l = 0; l < level - 2; l++) {
+            quarterCol = (quarterCol * 2) % cols;
+            quarterRow = (quarterRow * 2) % rows;
+        }
+        for (int row = 0; row < rows; row++) {
+            long y = Math.floorMod(row - quarterRow, (long) rows);
+            for (int col = 0; col < cols; col++) {
+                long x = Math.floorMod(col - quarterCol, (long) cols);
+                board.set(row, col, cellAt(result, x, y));
+            }
+        }
+    }
+
+    private static boolean cellAt(Node node, long x, long y) {
+        while (node.level > 0) {
+            long half = 1L << (node.level - 1);
+            if (y < half) {
+                node = (x < half) ? node.nw : node.ne;
+            } else {
+                node = (x < half) ? node.sw : node.se;
+                y -= half;
+            }
+            if (x >= half) {
+                x -= half;
+            }
+        }
+        return node.alive;
+    }
+
+    /* Number of distinct nodes built so far */
+    public int size() {
+        return canonical.size();
+    }
+
+    static public void main(String[] args) {
+        // compare a long run against plain stepping
+        LightBoard start = new LightBoard(12, 9);
+        BitBoard stepped = BitBoard.from(start);
+        BitBoard jumped = BitBoard.from(start);
+        stepped.step(1000);
+        HashLife hashLife = new HashLife();
+        hashLife.advance(jumped, 1000);
+        System.out.println("Same after 1000 generations: " + stepped.toDisplayString().equals(jumped.toDisplayString()));
+
+        // generations far beyond what stepping could reach
+        long begin = System.nanoTime();
+        hashLife.advance(jumped, 1_000_000_000_000L);
+        System.out.println("10^12 more generations in ms: " + (System.nanoTime() - begin) / 1_000_000 + ", nodes: " + hashLife.size());
+        System.out.println(jumped.toDisplayString());
+    }
+}
@@ -0,0 +1,131 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+/* Life-like rule in B/S notation, e.g. B3/S23 (Conway's Game of Life) or B36/S23 (HighLife)
+    B: neighbor counts at which a dead cell is born, S: counts at which a live cell survives
+   The rule is compiled once into
+    - a table indexed by (alive, neighbor count), used cell by cell by LightBoard and HashLife
+    - bitwise match terms, one per neighbor count the rule reacts to, used 64 cells at a time by BitBoard
+   so no rule is checked with branches while stepping.
+ */
+public final class LifeRule {
+    public static final LifeRule CONWAY = parse("B3/S23");
+
+    private final int birth;     // bit n set if a dead cell with n neighbors is born
+    private final int survive;   // bit n set if a live cell with n neighbors survives
+
+    // next state by alive * 9 + neighbors
+    private final boolean[] table = new boolean[18];
+
+    /* BitBoard match terms, TERM_LONGS per term:
+        four masks compared with the bit-sliced count (s0..s3), the alive value to compare with,
+        and whether alive matters (0 when the count is in both B and S)
+       a cell is on next generation if any term matches all of its compared bits
+     */
+    static final int TERM_LONGS = 6;
+    final long[] terms;
+
+    private LifeRule(int birth, int survive) {
+        this.birth = birth;
+        this.survive = survive;
+        int count = 0;
+        for (int n = 0; n <= 8; n++) {
+            table[n] = (birth & (1 << n)) != 0;
+            table[9 + n] = (survive & (1 << n)) != 0;
+            if (table[n] || table[9 + n]) {
+                count++;
+            }
+        }
+        terms = new long[count * TERM_LONGS];
+        int t = 0;
+        for (int n = 0; n <= 8; n++) {
+            if (!table[n] && !table[9 + n]) {
+                continue;
+            }
+            for (int bit = 0; bit < 4; bit++) {
+                terms[t + bit] = ((n >>> bit) & 1) != 0 ? -1L : 0L;
+            }
+            terms[t + 4] = table[9 + n] ? -1L : 0L;                 // alive value it applies to
+            terms[t + 5] = (table[n] && table[9 + n]) ? 0L : -1L;   // both born and survives, alive does not matter
+            t += TERM_LONGS;
+        }
+    }
+
+    /* Parse B/S notation ("B36/S23", case insensitive, either order) or the older S/B digits ("23/36") */
+    public static LifeRule parse(String rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Rule is missing");
+        }
+        String[] parts = rule.trim().toUpperCase().split("/", -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid rule, expected B<digits>/S<digits>: " + rule);
+        }
+        int birth = -1, survive = -1;
+        if (parts[0].startsWith("B") && parts[1].startsWith("S")) {
+            birth = counts(parts[0].substring(1), rule);
+            survive = counts(parts[1].substring(1), rule);
+        } else if (parts[0].startsWith("S") && parts[1].startsWith("B")) {
+            survive = counts(parts[0].substring(1), rule);
+            birth = counts(parts[1].substring(1), rule);
+        } else {
+            survive = counts(parts[0], rule);
+            birth = counts(parts[1], rule);
+        }
+        return new LifeRule(birth, survive);
+    }
+
+    // Bit set of neighbor counts, each digit 0-8 at most once
+    private static int counts(String digits, String rule) {
+        int bits = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int n = digits.charAt(i) - '0';
+            if (n < 0 || n > 8 || (bits & (1 << n)) != 0) {
+                throw new IllegalArgumentException("Invalid rule, counts are distinct digits 0-8: " + rule);
+            }
+            bits |= 1 << n;
+        }
+        return bits;
+    }
+
+    /* Next state of a cell */
+    public boolean next(boolean alive, int neighbors) {
+        return table[(alive ? 9 : 0) + neighbors];
+    }
+
+    /* Canonical B/S form, digits in ascending order */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("B");
+        for (int n = 0; n <= 8; n++) {
+            if ((birth & (1 << n)) != 0) {
+                out.append(n);
+            }
+        }
+        out.append("/S");
+        for (int n = 0; n <= 8; n++) {
+            if ((survive & (1 << n)) != 0) {
+                out.append(n);
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LifeRule)) {
+            return false;
+        }
+        LifeRule rule = (LifeRule) other;
+        return birth == rule.birth && survive == rule.survive;
+    }
+
+    @Override
+    public int hashCode() {
+        return (birth << 9) | survive;
+    }
+
+    static public void main(String[] args) {
+        LifeRule highLife = parse("b63/s32");
+        System.out.println(highLife + " " + highLife.next(false, 6) + " " + highLife.next(true, 6));
+        System.out.println(parse("23/3").equals(CONWAY));
+    }
+}
@@ -0,0 +1,221 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/* Game of Life generation engine
+    - the board is packed once into a BitBoard, whose two cell buffers are swapped every step
+    - stepping the board allocates nothing, cycle detection keeps a few small objects per remembered
+      generation, so long runs use memory bounded by the board and cycleWindow
+    - boards with at least parallelThreshold cells are stepped in row bands on a ForkJoinPool
+    - the SPARSE engine only recomputes regions next to last generation's changes
+    - the HASHLIFE engine jumps many generations at once in advance(), see HashLife
+    - LightBoard snapshots are only built when the caller asks for one, and never alias each other
+    - each stepped generation is fingerprinted, a repeat within cycleWindow generations means a still life
+      or oscillator, and once confirmed advance() skips whole laps of the cycle instead of computing them
+ */
+public class LifeSimulation {
+    /* STEP computes every generation, SPARSE only recomputes around changes and suits mostly empty boards,
+       HASHLIFE memoizes and suits very long or repetitive runs */
+    public enum Engine { STEP, SPARSE, HASHLIFE }
+
+    // below this many cells, splitting work costs more than it saves
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 256 * 256;
+
+    // generations remembered for cycle detection, a cycle is found if its period is at most this
+    public static final int DEFAULT_CYCLE_WINDOW = 64;
+    public static final int MAX_CYCLE_WINDOW = 4096;
+
+    private final BitBoard board;
+    private long generation = 0;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private Engine engine = Engine.STEP;
+    private HashLife hashLife;  // kept between calls so its memoized results are reused
+
+    // cycle detection: fingerprints of the last cycleWindow generations
+    private int cycleWindow = DEFAULT_CYCLE_WINDOW;
+    private final Map<Long, Long> seen = new HashMap<>();        // fingerprint -> latest generation
+    private final ArrayDeque<long[]> recent = new ArrayDeque<>();  // {fingerprint, generation}, oldest first
+    private long[] candidate;           // cells of a generation whose fingerprint repeated, checked one period later
+    private long candidateGeneration;
+    private long candidatePeriod;
+    private long cycleStart = -1;       // first generation of the confirmed cycle, -1 while none is known
+    private long period;
+
+    public LifeSimulation(LightBoard initial) {
+        this.board = BitBoard.from(initial);
+    }
+
+    public LifeSimulation(BitBoard board) {
+        this.board = board;
+    }
+
+    /* Number of generations computed so far, the initial board is generation 0 */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    /* Pool and board size (in cells) at which stepping goes parallel, Long.MAX_VALUE keeps it sequential */
+    public void setParallelism(ForkJoinPool pool, long parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /* Advance one generation, HASHLIFE computes single generations by stepping */
+    public void step() {
+        if (generation == 0 && recent.isEmpty()) {
+            track();  // the starting board can be part of the cycle too
+        }
+        if (engine == Engine.SPARSE) {
+            board.stepSparse();
+        } else if ((long) board.getRows() * board.getCols() >= parallelThreshold) {
+            board.step(pool);
+        } else {
+            board.step();
+        }
+        generation++;
+        track();
+    }
+
+    /* Generations to remember for cycle detection, 0 turns detection off, at most MAX_CYCLE_WINDOW */
+    public void setCycleWindow(int cycleWindow) {
+        if (cycleWindow < 0 || cycleWindow > MAX_CYCLE_WINDOW) {
+            throw new IllegalArgumentException("Cycle window must be 0 to " + MAX_CYCLE_WINDOW);
+        }
+        this.cycleWindow = cycleWindow;
+        while (recent.size() > cycleWindow) {
+            forgetOldest();
+        }
+    }
+
+    /* Period of the cycle the board has entered, 1 for a still life, 0 if no cycle was found yet */
+    public long getPeriod() {
+        return period;
+    }
+
+    /* Generation from which the board is known to repeat every period generations, -1 if no cycle was found yet */
+    public long getCycleStart() {
+        return cycleStart;
+    }
+
+    // Fingerprint the current generation, a repeat is confirmed by comparing cells one period later,
+    // so a hash collision can delay detection but never report a wrong cycle
+    private void track() {
+        if (cycleStart >= 0 || cycleWindow == 0) {
+            return;
+        }
+        if (candidate != null && generation == candidateGeneration + candidatePeriod) {
+            if (board.sameCells(candidate)) {
+                cycleStart = candidateGeneration;
+                period = candidatePeriod;
+                candidate = null;
+                seen.clear();
+                recent.clear();
+                return;
+            }
+            candidate = null;  // fingerprint collision
+        }
+        long fingerprint = board.fingerprint();
+        Long earlier = seen.get(fingerprint);
+        if (earlier != null && candidate == null) {
+            candidate = board.copyCells();
+            candidateGeneration = generation;
+            candidatePeriod = generation - earlier;
+        }
+        seen.put(fingerprint, generation);
+        recent.addLast(new long[] { fingerprint, generation });
+        if (recent.size() > cycleWindow) {
+            forgetOldest();
+        }
+    }
+
+    private void forgetOldest() {
+        long[] oldest = recent.removeFirst();
+        seen.remove(oldest[0], oldest[1]);  // unless a later generation had the same fingerprint
+    }
+
+    public LifeRule getRule() {
+        return board.getRule();
+    }
+
+    /* Rule for the following generations, cycles found under the previous rule no longer apply */
+    public void setRule(LifeRule rule) {
+        board.setRule(rule);
+        hashLife = null;
+        seen.clear();
+        recent.clear();
+        candidate = null;
+        cycleStart = -1;
+        period = 0;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /* Advance several generations without building any snapshots */
+    public void advance(int generations) {
+        int remaining = generations;
+        while (remaining > 0) {
+            if (period > 0) {
+                // whole laps of a known cycle end where they started, also once a cycle is found on the way
+                long laps = remaining / period * period;
+                generation += laps;
+                remaining -= (int) laps;
+                if (remaining == 0) {
+                    return;
+                }
+            }
+            if (engine == Engine.HASHLIFE) {
+                if (hashLife == null) {
+                    hashLife = new HashLife(board.getRule());
+                }
+                hashLife.advance(board, remaining);
+                generation += remaining;
+                return;
+            }
+            step();
+            remaining--;
+        }
+    }
+
+    /* Independent copy of the current generation */
+    public LightBoard snapshot() {
+        return board.toLightBoard();
+    }
+
+    static public void main(String[] args) {
+        LifeSimulation simulation = new LifeSimulation(new LightBoard(8, 8));
+        for (int i = 0; i < 3; i++) {
+            System.out.println("Generation " + simulation.getGeneration());
+            simulation.snapshot().displayLife();
+            simulation.step();
+        }
+        // long run, only the last generation is materialized
+        simulation.advance(1000);
+        System.out.println("Generation " + simulation.getGeneration() + ", period " + simulation.getPeriod());
+        simulation.snapshot().displayLife();
+
+        // blinker, found after a few generations and a billion more cost nothing
+        BitBoard blinker = new BitBoard(5, 5);
+        blinker.set(2, 1, true);
+        blinker.set(2, 2, true);
+        blinker.set(2, 3, true);
+        LifeSimulation oscillator = new LifeSimulation(blinker);
+        oscillator.advance(1_000_000_001);
+        System.out.println("Generation " + oscillator.getGeneration() + ", period " + oscillator.getPeriod()
+            + " from generation " + oscillator.getCycleStart());
+        System.out.println(blinker.toDisplayString());
+    }
+}
@@ -1,17 +1,30 @@
 package com.nighthawk.spring_portfolio.mvc.lightboard;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 @Data  // Annotations to simplify writing code (ie constructors, setters)
+@JsonPropertyOrder({"on", "red", "green", "blue", "effect", "rgb", "effectTitle"})
 public class Light {
-    boolean on;
-    short red;
-    short green;
-    short blue;
-    short effect;
+    /* on, effect and color packed in one int, a Light is an object header plus 4 bytes
+        bits 0-23   RGB, 0xRRGGBB
+        bits 24-27  effect
+        bit 28      on
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int packed;
+
+    static final int RGB_MASK = 0xFFFFFF;
+    static final int EFFECT_SHIFT = 24;
+    static final int ON = 1 << 28;
 
     /*  ANSI effects
         n	Name	Note
@@ -26,63 +39,111 @@ public class Light {
         8	Conceal or hide	Not widely supported.
         9	Crossed-out, or strike	Characters legible but marked as if for deletion. Not supported in Terminal.app
      */
-    private final Map<Short, String> EFFECT = new HashMap<>();
-    {
-        // Map<"separator", not_used>
-        EFFECT.put((short) 0, "Normal");
-        EFFECT.put((short) 1, "Bold");
-        EFFECT.put((short) 2, "Faint");
-        EFFECT.put((short) 3, "Italic");
-        EFFECT.put((short) 4, "Underline");
-        EFFECT.put((short) 5, "Slow Blink");
-        EFFECT.put((short) 6, "Fast Blink");
-        EFFECT.put((short) 7, "Reverse");
-        EFFECT.put((short) 8, "Conceal");
-        EFFECT.put((short) 9, "Crossed_out");
-    }
+    // shared by every Light, indexed by effect number
+    private static final String[] EFFECT = {
+        "Normal", "Bold", "Faint", "Italic", "Underline",
+        "Slow Blink", "Fast Blink", "Reverse", "Conceal", "Crossed_out"
+    };
 
     /* Assign random colors and effects */
     public Light() {
+        this(ThreadLocalRandom.current());
+    }
+
+    /* Assign random colors and effects drawn from random, a seeded generator gives the same Light every time */
+    public Light(RandomGenerator random) {
         int maxColor = 255;
         int effect = 9;
-        this.red = (short) (Math.random()*(maxColor+1));
-        this.green = (short) (Math.random()*(maxColor+1));
-        this.blue = (short) (Math.random()*(maxColor+1));
-        this.effect = (short) (Math.random()*(effect+1));
+        setRed((short) random.nextInt(maxColor+1));
+        setGreen((short) random.nextInt(maxColor+1));
+        setBlue((short) random.nextInt(maxColor+1));
+        setEffect((short) random.nextInt(effect+1));
     }
 
     // overload Light constructor for when colors are set manually
     public Light(short red, short green, short blue, short effect) {
-        this.red = red;
-        this.green = green;
-        this.blue = blue;
-        this.effect = effect;
+        this.packed = (checkColor(red) << 16) | (checkColor(green) << 8) | checkColor(blue) | (checkEffect(effect) << EFFECT_SHIFT);
+    }
+
+    // Light from the packed form, as kept by BitBoard
+    Light(int packed) {
+        this.packed = packed;
+    }
+
+    // Packed on, effect and color
+    int packed() {
+        return packed;
+    }
+
+    private static int checkColor(short value) {
+        if (value < 0 || value > 255) {
+            throw new IllegalArgumentException("Color must be 0-255: " + value);
+        }
+        return value;
+    }
+
+    private static int checkEffect(short value) {
+        if (value < 0 || value >= EFFECT.length) {
+            throw new IllegalArgumentException("Effect must be 0-" + (EFFECT.length - 1) + ": " + value);
+        }
+        return value;
+    }
+
+    public short getRed() {
+        return (short) ((packed >>> 16) & 0xFF);
+    }
+
+    public short getGreen() {
+        return (short) ((packed >>> 8) & 0xFF);
+    }
+
+    public short getBlue() {
+        return (short) (packed & 0xFF);
+    }
+
+    public short getEffect() {
+        return (short) ((packed >>> EFFECT_SHIFT) & 0xF);
+    }
+
+    public void setRed(short red) {
+        packed = (packed & ~(0xFF << 16)) | (checkColor(red) << 16);
+    }
+
+    public void setGreen(short green) {
+        packed = (packed & ~(0xFF << 8)) | (checkColor(green) << 8);
+    }
+
+    public void setBlue(short blue) {
+        packed = (packed & ~0xFF) | checkColor(blue);
+    }
+
+    public void setEffect(short effect) {
+        packed = (packed & ~(0xF << EFFECT_SHIFT)) | (checkEffect(effect) << EFFECT_SHIFT);
+    }
+
+    public void setOn(boolean on) {
+        packed = on ? (packed | ON) : (packed & ~ON);
+    }
+
+    public boolean isOn() {
+        return (packed & ON) != 0;
     }
 
     public String getEffectTitle() {
-        return EFFECT.get(this.effect);
+        return EFFECT[getEffect()];
     }
 
     public String getRGB() {
-        return ( "#" +
-         String.format("%02X", this.red) +
-         String.format("%02X", this.green) + 
-         String.format("%02X", this.blue) 
-         );
+        return LightBoardWriter.rgb(packed & RGB_MASK);  // hex table lookup
     }
 
     public boolean getOn() {
-        return on;
+        return isOn();
     }
 
     /* toString output as key/values */
     public String toString() {
-        return( "{" + 
-            "\"red\": " + red + "," +
-            "\"green\": " +  green + "," + 
-            "\"blue\": " + blue + "," +
-            "\"effect\": " + "\"" + EFFECT.get(effect) + "\"" +
-            "}" );
+        return LightBoardWriter.render(writer -> writer.writeLight(this));
     }
 
     static public void main(String[] args) {
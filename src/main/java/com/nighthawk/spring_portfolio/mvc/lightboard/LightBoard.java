@@ -1,24 +1,64 @@
 package com.nighthawk.spring_portfolio.mvc.lightboard;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 @Data  // Annotations to simplify writing code (ie constructors, setters)
 public class LightBoard {
     private Light[][] lights;
 
+    // next generation on/off states, kept between generations so stepping does not allocate
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private transient boolean[][] nextOn;
+
+    // boards with at least this many cells are filled one row per task across cores
+    private static final int PARALLEL_FILL_CELLS = 256 * 256;
+
     /* Initialize LightBoard and Lights */
     public LightBoard(int numRows, int numCols) {
         this.lights = new Light[numRows][numCols];
-        // 2D array nested loops, used for initialization
+        // each row draws from its own thread's generator, no shared Math.random() state
+        fillRows(numRows, row -> fillRow(row, ThreadLocalRandom.current()));
+    }
 
+    /* Initialize a reproducible LightBoard, the same seed and size always give the same board */
+    public LightBoard(int numRows, int numCols, long seed) {
+        this.lights = new Light[numRows][numCols];
+        // one generator split off per row up front, so the result does not depend on which thread fills which row
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] rowRandom = new SplittableRandom[numRows];
         for (int row = 0; row < numRows; row++) {
-            for (int col = 0; col < numCols; col++) {
-                lights[row][col] = new Light();  // each cell needs to be constructed
-                // set getOn
-                if (Math.random() < 0.5) {
-                    lights[row][col].setOn(true);
-                }
+            rowRandom[row] = root.split();
+        }
+        fillRows(numRows, row -> fillRow(row, rowRandom[row]));
+    }
+
+    private void fillRows(int numRows, IntConsumer fill) {
+        IntStream rows = IntStream.range(0, numRows);
+        if (numRows > 1 && (long) numRows * lights[0].length >= PARALLEL_FILL_CELLS) {
+            rows = rows.parallel();
+        }
+        rows.forEach(fill);
+    }
+
+    // 2D array nested loops, used for initialization
+    private void fillRow(int row, RandomGenerator random) {
+        for (int col = 0; col < lights[row].length; col++) {
+            lights[row][col] = new Light(random);  // each cell needs to be constructed
+            // set getOn
+            if (random.nextBoolean()) {
+                lights[row][col].setOn(true);
             }
         }
     }
@@ -30,53 +70,12 @@ public class LightBoard {
 
     /* Output is intended for API key/values */
     public String toString() { 
-        String outString = "[";
-        // 2D array nested loops, used for reference
-        for (int row = 0; row < lights.length; row++) {
-            for (int col = 0; col < lights[row].length; col++) {
-                outString += 
-                // data
-                "{" + 
-                "\"row\": " + row + "," +
-                "\"column\": " + col + "," +
-                "\"light\": " + lights[row][col] +   // extract toString data
-                "}," ;
-            }
-        }
-        // remove last comma, newline, add square bracket, reset color
-        outString = outString.substring(0,outString.length() - 1) + "]";
-		return outString;
+        return LightBoardWriter.render(writer -> writer.writeJson(lights));
     }
 
     /* Output is intended for Terminal, effects added to output */
     public String toTerminal() { 
-        String outString = "[";
-        // 2D array nested loops, used for reference
-        for (int row = 0; row < lights.length; row++) {
-            for (int col = 0; col < lights[row].length; col++) {
-                outString += 
-                // reset
-                "\033[m" +
-                
-                // color
-                "\033[38;2;" + 
-                lights[row][col].getRed() + ";" +  // set color using getters
-                lights[row][col].getGreen() + ";" +
-                lights[row][col].getBlue() + ";" +
-                lights[row][col].getEffect() + "m" +
-                // data, extract custom getters
-                "{" +
-                "\"" + "RGB\": " + "\"" + lights[row][col].getRGB() + "\"" +
-                "," +
-                "\"" + "Effect\": " + "\"" + lights[row][col].getEffectTitle() + "\"" +
-                "}," +
-                // newline
-                "\n" ;
-            }
-        }
-        // remove last comma, newline, add square bracket, reset color
-        outString = outString.substring(0,outString.length() - 2) + "\033[m" + "]";
-		return outString;
+        return LightBoardWriter.render(writer -> writer.writeTerminal(lights));
     }
 
     /* Output is intended for Terminal, draws color palette */
@@ -85,86 +84,13 @@ public class LightBoard {
         final int ROWS = (int)(Math.random() * 5) + 5; // 5;
         final int COLS = (int)(Math.random() * 5) + 5; // 10;
 
-        // Build large string for entire color palette
-        String outString = "";
-        // find each row
-        for (int row = 0; row < lights.length; row++) {
-            // repeat each row for block size
-            for (int i = 0; i < ROWS; i++) {
-                // find each column
-                for (int col = 0; col < lights[row].length; col++) {
-                    // repeat each column for block size
-                    for (int j = 0; j < COLS; j++) {
-                        // print single character, except at midpoint print color code
-                        String c = (i == (int) (ROWS / 2) && j == (int) (COLS / 2) ) 
-                            ? lights[row][col].getRGB()
-                            : (j == (int) (COLS / 2))  // nested ternary
-                            ? " ".repeat(lights[row][col].getRGB().length())
-                            : " ";
-
-                        // reset
-                        outString += "\033[m";
-                    
-                        // don't add color if on is false
-                        outString += (lights[row][col].getOn()) 
-                            ? "\033[38;2;" + 
-                                lights[row][col].getRed() + ";" +  // set color using getters
-                                lights[row][col].getGreen() + ";" +
-                                lights[row][col].getBlue() + ";" +
-                                lights[row][col].getEffect() + "m" +
-                                c
-                            : c;
-
-                        // reset
-                        outString += "\033[m";
-                    }
-                }
-                outString += "\n";
-            }
-        }
-        // remove last comma, newline, add square bracket, reset color
-        outString += "\033[m";
-		return outString;
+        return LightBoardWriter.render(writer -> writer.writePalette(lights, ROWS, COLS));
     }
 
     /* Simulate Conways Game of Life */
 
     public Light[][] simulateLife() {
-        // 2D array nested loops, used for reference
-        for (int row = 0; row < lights.length; row++) {
-            for (int col = 0; col < lights[row].length; col++) {
-                // count neighbors
-                int neighbors = 0;
-                // check each neighbor
-                for (int i = -1; i <= 1; i++) {
-                    for (int j = -1; j <= 1; j++) {
-                        // skip self
-                        if (i == 0 && j == 0) continue;
-                        // check if neighbor is alive
-                        if (lights[(row + i + lights.length) % lights.length][(col + j + lights[row].length) % lights[row].length].getOn()) {
-                            neighbors++;
-                        }
-                    }
-                }
-                // apply rules
-                /*
-                * Any live cell with two or three live neighbours survives.
-                Any dead cell with three live neighbours becomes a live cell.
-                All other live cells die in the next generation. Similarly, all other dead cells stay dead.
-                 * 
-                 */
-                if (lights[row][col].getOn()) {
-                    if (neighbors < 2 || neighbors > 3) {
-                        lights[row][col].setOn(false); // lambok method
-                    }
-                } else {
-                    if (neighbors == 3) {
-                        lights[row][col].setOn(true);
-                    }
-                }
-            }
-        }
-        return lights;
+        return nextGeneration();
     }
 
     // Display game of life with getOn as on/off
@@ -215,6 +141,16 @@ public class LightBoard {
 
     // next generation returns next generation of lights 
     public Light[][] nextGeneration() {
+        return nextGeneration(LifeRule.CONWAY);
+    }
+
+    // next generation under any Life-like rule, e.g. LifeRule.parse("B36/S23")
+    public Light[][] nextGeneration(LifeRule rule) {
+        // every cell is decided from the current generation first, then all cells are updated,
+        // so cells later in the scan do not see neighbors that already changed
+        if (nextOn == null || nextOn.length != lights.length || nextOn[0].length != lights[0].length) {
+            nextOn = new boolean[lights.length][lights[0].length];
+        }
         // 2D array nested loops, used for reference
         for (int row = 0; row < lights.length; row++) {
             for (int col = 0; col < lights[row].length; col++) {
@@ -237,16 +173,15 @@ public class LightBoard {
                 Any dead cell with three live neighbours becomes a live cell.
                 All other live cells die in the next generation. Similarly, all other dead cells stay dead.
                  * 
+                 * (that is B3/S23, the rule table holds the answer for every state and neighbor count)
                  */
-                if (lights[row][col].getOn()) {
-                    if (neighbors < 2 || neighbors > 3) {
-                        lights[row][col].setOn(false); // lambok method
-                    }
-                } else {
-                    if (neighbors == 3) {
-                        lights[row][col].setOn(true);
-                    }
-                }
+                nextOn[row][col] = rule.next(lights[row][col].getOn(), neighbors);
+            }
+        }
+        // swap in the next generation
+        for (int row = 0; row < lights.length; row++) {
+            for (int col = 0; col < lights[row].length; col++) {
+                lights[row][col].setOn(nextOn[row][col]); // lambok method
             }
         }
         return lights;
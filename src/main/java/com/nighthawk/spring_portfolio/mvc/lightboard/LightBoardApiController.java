@@ -1,14 +1,27 @@
 package com.nighthawk.spring_portfolio.mvc.lightboard;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.text.SimpleDateFormat;
 
@@ -16,17 +29,400 @@ import java.text.SimpleDateFormat;
 @RequestMapping("/api/lightboard")
 @JsonAutoDetect(getterVisibility=Visibility.NONE)
 public class LightBoardApiController {
+
+  // Spring's shared mapper, used for its JsonFactory when streaming generations
+  @Autowired
+  private ObjectMapper mapper;
+
+  // saved boards, one BoardSnapshot file per id, next to the sqlite database so they persist
+  private static final Path SNAPSHOTS = Paths.get("volumes", "snapshots");
+
+  // cycle length of the simulated board, set once a still life or oscillator is detected
+  private static final String PERIOD_HEADER = "X-Lightboard-Period";
+
+  // largest random starting board, 1024x1024
+  public static final long MAX_CELLS = 1024 * 1024;
+
+  // largest snapshot upload, a MAX_CELLS board of a single column (one cell word per row)
+  private static final long MAX_SNAPSHOT_BYTES = BoardSnapshot.length((int) MAX_CELLS, 1);
+
+  // disk quota for saved boards, a new or larger snapshot past either limit is refused with 507
+  public static final int MAX_SNAPSHOTS = 256;
+  public static final long MAX_SNAPSHOT_TOTAL_BYTES = 512L * 1024 * 1024;
+
+  // most Light objects one /simulate response may hold, (returned generations) x cells, larger runs use /stream
+  public static final long MAX_RESPONSE_CELLS = 1024 * 1024;
+
+  // most cells x generations one request may step, about 15 seconds of CPU at a few billion cells a second
+  public static final long MAX_CELL_GENERATIONS = 1L << 35;
+
+  // largest board for hashlife, its node table grows with the board far more than the stepping engines' buffers
+  public static final long MAX_HASHLIFE_CELLS = 64 * 64;
+
+  // most cells x hashlife passes one request may run, each advance() is one pass over the whole board
+  // (window build and extract, about 150 ns a cell), so about 10 seconds of CPU
+  public static final long MAX_HASHLIFE_PASS_CELLS = 1L << 26;
+
+  // seeded runs, packed cells take 8 bytes per 64 cells per returned generation
+  private final SimulationCache cache = new SimulationCache(64L * 1024 * 1024);
   
-@GetMapping("/simulate/{generations}")
-  public ResponseEntity<List<LightBoard>> getSimulation(@PathVariable("generations") int generations) {
-    List<LightBoard> lightBoardList = new ArrayList<LightBoard>();
-    LightBoard lightBoard = new LightBoard(5,5);
-    lightBoardList.add(lightBoard);
-    for (int i = 0; i < generations; i++) {
-      lightBoard = new LightBoard(lightBoard.nextGeneration());
-      lightBoardList.add(lightBoard);
+  /* GET simulation, generation 0 is the starting board followed by each computed generation
+   * every: only return every n-th generation (the last generation is always returned),
+   *        long runs with a large every keep the response small
+   * engine: "step" computes each generation, "sparse" only recomputes around changed cells,
+   *         "hashlife" jumps between returned generations,
+   *         e.g. /simulate/1000000?every=1000000&engine=hashlife
+   * rows, cols: size of the random starting board, 5x5 by default, at most MAX_CELLS cells
+   * rule: Life-like rule in B/S notation, B3/S23 (Conway) by default, e.g. B36/S23 for HighLife
+   * snapshot: start from a saved board (see /snapshots) instead of a random board
+   * seed: make the random starting board reproducible, the same seed always gives the same run
+   * window: generations remembered to detect a still life or oscillator, 0 turns detection off,
+   *         at most LifeSimulation.MAX_CYCLE_WINDOW
+   * Requests past MAX_RESPONSE_CELLS returned cells, MAX_CELL_GENERATIONS of stepping, or for hashlife
+   * MAX_HASHLIFE_CELLS and MAX_HASHLIFE_PASS_CELLS (cells x generations / every) are rejected with 400.
+   * Once the board repeats, whole cycles are skipped instead of computed, and the period is returned
+   * in the X-Lightboard-Period header (1 for a still life).
+   */
+  @GetMapping("/simulate/{generations}")
+  public ResponseEntity<List<LightBoard>> getSimulation(@PathVariable("generations") int generations,
+                                                        @RequestParam(name = "every", defaultValue = "1") int every,
+                                                        @RequestParam(name = "rows", defaultValue = "5") int rows,
+                                                        @RequestParam(name = "cols", defaultValue = "5") int cols,
+                                                        @RequestParam(name = "rule", defaultValue = "B3/S23") String rule,
+                                                        @RequestParam(name = "engine", defaultValue = "step") String engine,
+                                                        @RequestParam(name = "snapshot", required = false) String snapshot,
+                                                        @RequestParam(name = "seed", required = false) Long seed,
+                                                        @RequestParam(name = "window", defaultValue = "64") int window) throws IOException {
+    final LifeSimulation.Engine parsed = parseEngine(engine);
+    if (generations < 0 || every < 1 || window < 0 || window > LifeSimulation.MAX_CYCLE_WINDOW || parsed == null) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    checkSize(rows, cols);
+    final LifeRule parsedRule = LifeRule.parse(rule);
+    SimulationCache.Run run;
+    if (snapshot == null && seed != null) {
+      checkRun((long) rows * cols, parsed, generations, every);
+      checkResponse((long) rows * cols, generations, every);
+      // a seeded run always produces the same boards, identical requests share one computation
+      String key = seed + "/" + rows + "x" + cols + "/" + parsedRule + "/" + generations + "/" + every + "/" + parsed + "/" + window;
+      run = cache.get(key, () -> SimulationCache.Run.record(
+          newSimulation(seededBoard(seed, rows, cols), parsed, parsedRule, window), generations, every));
+    } else {
+      BitBoard board = startingBoard(snapshot, seed, rows, cols);
+      checkRun((long) board.getRows() * board.getCols(), parsed, generations, every);
+      checkResponse((long) board.getRows() * board.getCols(), generations, every);
+      run = SimulationCache.Run.record(newSimulation(board, parsed, parsedRule, window), generations, every);
+    }
+    // Light objects are only built for the response, the run itself keeps packed cells
+    List<LightBoard> lightBoardList = run.toLightBoards();
+    HttpHeaders headers = new HttpHeaders();
+    if (run.getPeriod() > 0) {
+      headers.set(PERIOD_HEADER, Long.toString(run.getPeriod()));
+    }
+    return new ResponseEntity<List<LightBoard>>(lightBoardList, headers, HttpStatus.OK);
+  }
 
-}
-    return new ResponseEntity<List<LightBoard>>(lightBoardList, HttpStatus.OK);
+  /* GET simulation streamed as NDJSON, one line per generation as soon as it is computed:
+   *   {"generation": 0, "lights": [[{"on": true, ...}, ...], ...]}
+   * format: "full" sends every generation as above,
+   *         "delta" sends the full board only for generation 0, then just the cells that flipped,
+   *         as indices row * columns + column: {"generation": 1, "flipped": [3, 7, 12]}
+   *         colors and effects never change while simulating, so the first board carries them all
+   * Lines after a cycle is detected also carry its "period".
+   * Same other parameters and work limits as /simulate/{generations}, but no MAX_RESPONSE_CELLS limit:
+   * only the current generation is held in memory,
+   * and writes block while the client is behind, so a slow reader also slows the simulation
+   * instead of queueing generations on the server. A closed connection ends the run.
+   */
+  @GetMapping(value = "/simulate/{generations}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> getSimulationStream(@PathVariable("generations") int generations,
+                                                                   @RequestParam(name = "every", defaultValue = "1") int every,
+                                                                   @RequestParam(name = "rows", defaultValue = "5") int rows,
+                                                                   @RequestParam(name = "cols", defaultValue = "5") int cols,
+                                                                   @RequestParam(name = "rule", defaultValue = "B3/S23") String rule,
+                                                                   @RequestParam(name = "engine", defaultValue = "step") String engine,
+                                                                   @RequestParam(name = "format", defaultValue = "full") String format,
+                                                                   @RequestParam(name = "snapshot", required = false) String snapshot,
+                                                                   @RequestParam(name = "seed", required = false) Long seed,
+                                                                   @RequestParam(name = "window", defaultValue = "64") int window) throws IOException {
+    final boolean delta = format.equalsIgnoreCase("delta");
+    LifeSimulation.Engine parsed = parseEngine(engine);
+    if (generations < 0 || every < 1 || window < 0 || window > LifeSimulation.MAX_CYCLE_WINDOW || parsed == null || !(delta || format.equalsIgnoreCase("full"))) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    checkSize(rows, cols);
+    final LifeSimulation simulation = newSimulation(startingBoard(snapshot, seed, rows, cols), parsed, LifeRule.parse(rule), window);
+    checkRun((long) simulation.getBoard().getRows() * simulation.getBoard().getCols(), parsed, generations, every);
+    StreamingResponseBody body = out -> {
+      try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+        json.setRootValueSeparator(null);  // lines are separated explicitly below
+        writeGeneration(json, simulation);
+        long[] previous = delta ? simulation.getBoard().copyCells() : null;
+        while (simulation.getGeneration() < generations) {
+          simulation.advance((int) Math.min(every, generations - simulation.getGeneration()));
+          if (delta) {
+            writeDelta(json, simulation, previous);
+          } else {
+            writeGeneration(json, simulation);
+          }
+        }
+      }
+    };
+    return new ResponseEntity<>(body, HttpStatus.OK);
+  }
+
+  // One NDJSON line for the current generation, flushed so the client can render it right away
+  private static void writeGeneration(JsonGenerator json, LifeSimulation simulation) throws IOException {
+    json.writeStartObject();
+    json.writeNumberField("generation", simulation.getGeneration());
+    writePeriod(json, simulation);
+    json.writeFieldName("lights");
+    json.writeObject(simulation.snapshot().getLights());
+    json.writeEndObject();
+    json.writeRaw('\n');
+    json.flush();
+  }
+
+  // One NDJSON line with the cells flipped since previous, which then moves to the current generation
+  private static void writeDelta(JsonGenerator json, LifeSimulation simulation, long[] previous) throws IOException {
+    int[] flipped = simulation.getBoard().changedSince(previous);
+    json.writeStartObject();
+    json.writeNumberField("generation", simulation.getGeneration());
+    writePeriod(json, simulation);
+    json.writeFieldName("flipped");
+    json.writeArray(flipped, 0, flipped.length);
+    json.writeEndObject();
+    json.writeRaw('\n');
+    json.flush();
+  }
+
+  private static void writePeriod(JsonGenerator json, LifeSimulation simulation) throws IOException {
+    if (simulation.getPeriod() > 0) {
+      json.writeNumberField("period", simulation.getPeriod());
+    }
+  }
+
+  /* POST save a board under id, e.g. /snapshots/glider?from=start&generations=1000
+   * from: saved board to start from, a random rows x cols board (5x5 by default) if missing
+   * seed: makes that random board reproducible
+   * generations, engine, rule: advance the board first, as in /simulate, so long runs can be checkpointed and resumed
+   * Returns the saved board's id, rows, cols, generation and population.
+   */
+  @PostMapping("/snapshots/{id}")
+  public ResponseEntity<Map<String, Object>> saveSnapshot(@PathVariable("id") String id,
+                                                          @RequestParam(name = "from", required = false) String from,
+                                                          @RequestParam(name = "generations", defaultValue = "0") int generations,
+                                                          @RequestParam(name = "engine", defaultValue = "step") String engine,
+                                                          @RequestParam(name = "rows", defaultValue = "5") int rows,
+                                                          @RequestParam(name = "cols", defaultValue = "5") int cols,
+                                                          @RequestParam(name = "rule", defaultValue = "B3/S23") String rule,
+                                                          @RequestParam(name = "seed", required = false) Long seed) throws IOException {
+    Path path = snapshotPath(id);
+    LifeSimulation.Engine parsed = parseEngine(engine);
+    if (generations < 0 || parsed == null) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    checkSize(rows, cols);
+    LifeSimulation simulation = newSimulation(startingBoard(from, seed, rows, cols), parsed, LifeRule.parse(rule),
+        LifeSimulation.DEFAULT_CYCLE_WINDOW);
+    // a single advance, so one hashlife pass
+    checkRun((long) simulation.getBoard().getRows() * simulation.getBoard().getCols(), parsed, generations, Math.max(generations, 1));
+    simulation.advance(generations);
+    Path temp = temporaryFile();
+    try {
+      BoardSnapshot.write(simulation.getBoard(), temp);
+      if (!store(temp, path)) {
+        return new ResponseEntity<>(HttpStatus.INSUFFICIENT_STORAGE);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return new ResponseEntity<>(summary(id, simulation), HttpStatus.OK);
+  }
+
+  /* PUT upload a board file in BoardSnapshot format, rejected with 400 if it does not read back
+   * or its board has more than MAX_CELLS cells, and with 413 past the largest such file
+   * Saving or uploading is refused with 507 past MAX_SNAPSHOTS files or MAX_SNAPSHOT_TOTAL_BYTES,
+   * replacing an existing id only counts the difference in size.
+   */
+  @PutMapping(value = "/snapshots/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<Map<String, Object>> putSnapshot(@PathVariable("id") String id, InputStream body) throws IOException {
+    Path path = snapshotPath(id);
+    Path temp = temporaryFile();
+    try {
+      if (!copyAtMost(body, temp, MAX_SNAPSHOT_BYTES)) {
+        return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+      }
+      LifeSimulation simulation;
+      try {
+        simulation = new LifeSimulation(readSnapshot(temp));
+      } catch (IOException e) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);  // not a snapshot
+      }
+      if (!store(temp, path)) {
+        return new ResponseEntity<>(HttpStatus.INSUFFICIENT_STORAGE);
+      }
+      return new ResponseEntity<>(summary(id, simulation), HttpStatus.OK);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /* GET download a saved board file */
+  @GetMapping(value = "/snapshots/{id}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<StreamingResponseBody> getSnapshot(@PathVariable("id") String id) throws IOException {
+    Path path = snapshotPath(id);
+    if (!Files.exists(path)) {
+      throw new NoSuchFileException(id);
+    }
+    StreamingResponseBody body = out -> Files.copy(path, out);
+    return new ResponseEntity<>(body, HttpStatus.OK);
+  }
+
+  @ExceptionHandler(NoSuchFileException.class)
+  public ResponseEntity<String> snapshotNotFound(NoSuchFileException e) {
+    return new ResponseEntity<>("Snapshot not found", HttpStatus.NOT_FOUND);
+  }
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+    return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
   }
-}
\ No newline at end of file
+
+  // Copy in to target, false as soon as more than max bytes arrive
+  private static boolean copyAtMost(InputStream in, Path target, long max) throws IOException {
+    try (OutputStream out = Files.newOutputStream(target)) {
+      byte[] buffer = new byte[8192];
+      long total = 0;
+      for (int n; (n = in.read(buffer)) > 0; ) {
+        total += n;
+        if (total > max) {
+          return false;
+        }
+        out.write(buffer, 0, n);
+      }
+    }
+    return true;
+  }
+
+  // Saved or uploaded board, its header is checked against MAX_CELLS before the cells are read
+  private static BitBoard readSnapshot(Path path) throws IOException {
+    int[] size = BoardSnapshot.readSize(path);
+    checkSize(size[0], size[1]);
+    return BoardSnapshot.read(path);
+  }
+
+  // Snapshot file for id, ids are plain names so they cannot point outside SNAPSHOTS
+  private static Path snapshotPath(String id) throws IOException {
+    if (id == null || !id.matches("[A-Za-z0-9_-]{1,64}")) {
+      throw new IllegalArgumentException("Snapshot id must be 1-64 letters, digits, _ or -");
+    }
+    Files.createDirectories(SNAPSHOTS);
+    return SNAPSHOTS.resolve(id + ".lbrd");
+  }
+
+  // Move temp to path if the snapshots still fit the quota with it, false (and nothing moved) if not
+  // synchronized so two uploads cannot both take the last room
+  private static synchronized boolean store(Path temp, Path path) throws IOException {
+    int count = 1;
+    long total = Files.size(temp);
+    try (DirectoryStream<Path> saved = Files.newDirectoryStream(SNAPSHOTS, "*.lbrd")) {
+      for (Path file : saved) {
+        if (!file.equals(path)) {  // replaced, so only the new file counts
+          count++;
+          total += Files.size(file);
+        }
+      }
+    }
+    if (count > MAX_SNAPSHOTS || total > MAX_SNAPSHOT_TOTAL_BYTES) {
+      return false;
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return true;
+  }
+
+  // Written first and then moved into place, so readers never see a partial snapshot
+  private static Path temporaryFile() throws IOException {
+    Files.createDirectories(SNAPSHOTS);
+    return Files.createTempFile(SNAPSHOTS, "upload", ".tmp");
+  }
+
+  private static Map<String, Object> summary(String id, LifeSimulation simulation) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("id", id);
+    summary.put("rows", simulation.getBoard().getRows());
+    summary.put("cols", simulation.getBoard().getCols());
+    summary.put("generation", simulation.getGeneration());
+    summary.put("population", simulation.getBoard().population());
+    return summary;
+  }
+
+  /* GET simulation cache counters: size, bytes, hits, misses, joins (requests that waited on an identical one) */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<Map<String, Object>> getCacheStats() {
+    return new ResponseEntity<>(cache.stats(), HttpStatus.OK);
+  }
+
+  // LifeSimulation.Engine by case insensitive name, null if there is no such engine
+  private static LifeSimulation.Engine parseEngine(String engine) {
+    try {
+      return LifeSimulation.Engine.valueOf(engine.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  // Boards are built as Lights for responses, so random and saved boards alike are capped
+  private static void checkSize(int rows, int cols) {
+    if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS) {
+      throw new IllegalArgumentException("Board must have 1 to " + MAX_CELLS + " cells");
+    }
+  }
+
+  // Work one run may take, hashlife is limited by board size and cells x passes (one per every generations),
+  // the stepping engines by cells x generations
+  private static void checkRun(long cells, LifeSimulation.Engine engine, long generations, int every) {
+    if (engine == LifeSimulation.Engine.HASHLIFE) {
+      if (cells > MAX_HASHLIFE_CELLS) {
+        throw new IllegalArgumentException("Hashlife boards are limited to " + MAX_HASHLIFE_CELLS + " cells");
+      }
+      long passes = (generations + every - 1) / every;
+      if (cells * passes > MAX_HASHLIFE_PASS_CELLS) {
+        throw new IllegalArgumentException("Hashlife cells x passes is limited to " + MAX_HASHLIFE_PASS_CELLS
+            + ", use a larger every");
+      }
+    } else if (cells * generations > MAX_CELL_GENERATIONS) {
+      throw new IllegalArgumentException("Cells x generations is limited to " + MAX_CELL_GENERATIONS);
+    }
+  }
+
+  // Light objects a /simulate response would build, generation 0 plus every n-th generation and the last one
+  private static void checkResponse(long cells, int generations, int every) {
+    long returned = (generations + (long) every - 1) / every + 1;
+    if (cells * returned > MAX_RESPONSE_CELLS) {
+      throw new IllegalArgumentException("Response is limited to " + MAX_RESPONSE_CELLS
+          + " cells over all returned generations, use a larger every or /stream");
+    }
+  }
+
+  // Saved board, or a random rows x cols board when snapshot is null, seeded if seed is given
+  // NoSuchFileException if there is no such snapshot
+  private static BitBoard startingBoard(String snapshot, Long seed, int rows, int cols) throws IOException {
+    if (snapshot != null) {
+      return readSnapshot(snapshotPath(snapshot));
+    }
+    return (seed != null) ? seededBoard(seed, rows, cols) : BitBoard.from(new LightBoard(rows, cols));
+  }
+
+  private static BitBoard seededBoard(long seed, int rows, int cols) {
+    return BitBoard.from(new LightBoard(rows, cols, seed));
+  }
+
+  private static LifeSimulation newSimulation(BitBoard board, LifeSimulation.Engine engine, LifeRule rule, int window) {
+    LifeSimulation simulation = new LifeSimulation(board);
+    simulation.setEngine(engine);
+    simulation.setRule(rule);
+    simulation.setCycleWindow(window);
+    return simulation;
+  }
+}
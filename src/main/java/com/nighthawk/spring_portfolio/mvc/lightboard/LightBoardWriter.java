@@ -0,0 +1,207 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/* Writes LightBoard output modes straight to a Writer or OutputStream
+    - same text as LightBoard.toString(), toTerminal() and toColorPalette() used to build with String +=
+    - each cell is written once, so output time is linear in board size
+    - colors come from precomputed decimal and hex tables, no String.format per cell
+    - text is gathered in a small char buffer and handed on in blocks, memory stays bounded for any board size
+ */
+public class LightBoardWriter {
+    private static final String RESET = "\033[m";
+    private static final String RGB_BLANK = "       ";
+
+    // "0".."255" and "00".."FF", indexed by color component
+    private static final String[] DECIMAL = new String[256];
+    private static final String[] HEX = new String[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            DECIMAL[i] = Integer.toString(i);
+            HEX[i] = String.format("%02X", i);
+        }
+    }
+
+    private final Writer out;
+    private final char[] buffer = new char[8192];
+    private int length = 0;
+
+    /* Call flush() when done, out is not closed */
+    public LightBoardWriter(Writer out) {
+        this.out = out;
+    }
+
+    /* UTF-8 output to a stream, call flush() when done, the stream is not closed */
+    public LightBoardWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+        out.flush();
+    }
+
+    /* API key/values, one object per cell: [{"row": 0,"column": 0,"light": {...}},...] */
+    public void writeJson(Light[][] lights) throws IOException {
+        write('[');
+        boolean first = true;
+        for (int row = 0; row < lights.length; row++) {
+            for (int col = 0; col < lights[row].length; col++) {
+                if (!first) {
+                    write(',');
+                }
+                first = false;
+                write("{\"row\": ");
+                write(Integer.toString(row));
+                write(",\"column\": ");
+                write(Integer.toString(col));
+                write(",\"light\": ");
+                writeLight(lights[row][col]);
+                write('}');
+            }
+        }
+        write(']');
+    }
+
+    /* Same key/values as Light.toString() */
+    public void writeLight(Light light) throws IOException {
+        write("{\"red\": ");
+        writeDecimal(light.getRed());
+        write(",\"green\": ");
+        writeDecimal(light.getGreen());
+        write(",\"blue\": ");
+        writeDecimal(light.getBlue());
+        write(",\"effect\": \"");
+        write(light.getEffectTitle());
+        write("\"}");
+    }
+
+    /* Terminal lines, each cell in its own color and effect */
+    public void writeTerminal(Light[][] lights) throws IOException {
+        write('[');
+        boolean first = true;
+        for (int row = 0; row < lights.length; row++) {
+            for (int col = 0; col < lights[row].length; col++) {
+                if (!first) {
+                    write(",\n");
+                }
+                first = false;
+                Light light = lights[row][col];
+                write(RESET);
+                writeColor(light);
+                write("{\"RGB\": \"");
+                writeRGB(light);
+                write("\",\"Effect\": \"");
+                write(light.getEffectTitle());
+                write("\"}");
+            }
+        }
+        write(RESET);
+        write(']');
+    }
+
+    /* Color palette, each cell is a blockRows x blockCols block with its RGB code in the middle,
+     * cells that are off keep the layout but are not colored
+     */
+    public void writePalette(Light[][] lights, int blockRows, int blockCols) throws IOException {
+        for (int row = 0; row < lights.length; row++) {
+            for (int i = 0; i < blockRows; i++) {
+                for (int col = 0; col < lights[row].length; col++) {
+                    Light light = lights[row][col];
+                    for (int j = 0; j < blockCols; j++) {
+                        write(RESET);
+                        if (light.getOn()) {
+                            writeColor(light);
+                        }
+                        if (i == blockRows / 2 && j == blockCols / 2) {
+                            writeRGB(light);
+                        } else if (j == blockCols / 2) {
+                            write(RGB_BLANK);  // as wide as the RGB code, so columns line up
+                        } else {
+                            write(' ');
+                        }
+                        write(RESET);
+                    }
+                }
+                write('\n');
+            }
+        }
+        write(RESET);
+    }
+
+    /* "#RRGGBB" for a 0xRRGGBB color, same as Light.getRGB() */
+    public static String rgb(int rgb) {
+        return "#" + HEX[(rgb >>> 16) & 0xFF] + HEX[(rgb >>> 8) & 0xFF] + HEX[rgb & 0xFF];
+    }
+
+    /* Render to a String with one of the write methods */
+    static String render(Output output) {
+        StringWriter text = new StringWriter();
+        try {
+            LightBoardWriter writer = new LightBoardWriter(text);
+            output.writeTo(writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringWriter does not throw
+        }
+        return text.toString();
+    }
+
+    interface Output {
+        void writeTo(LightBoardWriter writer) throws IOException;
+    }
+
+    // ANSI 24 bit foreground color followed by the light's effect
+    private void writeColor(Light light) throws IOException {
+        write("\033[38;2;");
+        writeDecimal(light.getRed());
+        write(';');
+        writeDecimal(light.getGreen());
+        write(';');
+        writeDecimal(light.getBlue());
+        write(';');
+        writeDecimal(light.getEffect());
+        write('m');
+    }
+
+    private void writeRGB(Light light) throws IOException {
+        write('#');
+        write(HEX[light.getRed()]);
+        write(HEX[light.getGreen()]);
+        write(HEX[light.getBlue()]);
+    }
+
+    // Light keeps colors in 0-255 and effects in 0-9, both index the tables directly
+    private void writeDecimal(short value) throws IOException {
+        write(DECIMAL[value]);
+    }
+
+    private void write(String text) throws IOException {
+        int n = text.length();
+        if (length + n > buffer.length) {
+            out.write(buffer, 0, length);
+            length = 0;
+            if (n > buffer.length) {
+                out.write(text);
+                return;
+            }
+        }
+        text.getChars(0, n, buffer, length);
+        length += n;
+    }
+
+    private void write(char c) throws IOException {
+        if (length == buffer.length) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        buffer[length++] = c;
+    }
+}
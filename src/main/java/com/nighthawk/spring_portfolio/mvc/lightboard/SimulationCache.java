@@ -0,0 +1,187 @@
+package com.nighthawk.spring_portfolio.mvc.lightboard;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/* Bounded cache of simulation runs, for requests that always produce the same boards (seeded ones)
+    - runs are kept compact: packed cell words per returned generation plus one color/effect plane,
+      Light objects are only built when a run is handed out
+    - size is bounded by bytes held, least recently used runs are evicted first
+    - single flight: concurrent requests for the same key wait for the one computation in progress
+ */
+public class SimulationCache {
+    private final long maxBytes;
+    private long bytes = 0;
+
+    // Map<"request key", run>, access order keeps the least recently used run at the head
+    private final LinkedHashMap<String, Run> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // runs being computed, a second request for the same key waits on the first one's future
+    private final ConcurrentHashMap<String, CompletableFuture<Run>> inFlight = new ConcurrentHashMap<>();
+
+    // counters exposed through stats()
+    private long hits = 0;
+    private long misses = 0;
+    private long joins = 0;
+    private long evictions = 0;
+
+    /* Generations returned by one simulation request, in compact form */
+    public static class Run {
+        private final int rows;
+        private final int cols;
+        private final int[] styles;           // color and effect per cell, fixed while simulating
+        private final List<long[]> cells;     // packed on/off words per returned generation
+        private final long period;
+
+        private Run(int rows, int cols, int[] styles, List<long[]> cells, long period) {
+            this.rows = rows;
+            this.cols = cols;
+            this.styles = styles;
+            this.cells = cells;
+            this.period = period;
+        }
+
+        /* Simulate generations, keeping generation 0, every n-th generation and the last one */
+        public static Run record(LifeSimulation simulation, int generations, int every) {
+            BitBoard board = simulation.getBoard();
+            List<long[]> cells = new ArrayList<>();
+            cells.add(board.copyCells());
+            while (simulation.getGeneration() < generations) {
+                simulation.advance((int) Math.min(every, generations - simulation.getGeneration()));
+                cells.add(board.copyCells());
+            }
+            return new Run(board.getRows(), board.getCols(), board.styles().clone(), cells, simulation.getPeriod());
+        }
+
+        /* Independent LightBoards, one per recorded generation */
+        public List<LightBoard> toLightBoards() {
+            List<LightBoard> boards = new ArrayList<>(cells.size());
+            BitBoard board = new BitBoard(rows, cols);
+            System.arraycopy(styles, 0, board.styles(), 0, styles.length);
+            for (long[] generation : cells) {
+                System.arraycopy(generation, 0, board.cells(), 0, generation.length);
+                boards.add(board.toLightBoard());
+            }
+            return boards;
+        }
+
+        /* Cycle period found while simulating, 0 if none */
+        public long getPeriod() {
+            return period;
+        }
+
+        long bytes() {
+            long total = styles.length * 4L;
+            for (long[] generation : cells) {
+                total += generation.length * 8L;
+            }
+            return total;
+        }
+    }
+
+    public SimulationCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /* Cached run for key, otherwise computed once by compute however many requests ask at the same time */
+    public Run get(String key, Supplier<Run> compute) {
+        Run cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Run> mine = new CompletableFuture<>();
+        CompletableFuture<Run> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            synchronized (this) {
+                joins++;
+            }
+            return await(running);
+        }
+        try {
+            // a request that finished just before ours registered may have stored the run already
+            Run run = peek(key);
+            if (run == null) {
+                run = compute.get();
+                store(key, run);
+            }
+            mine.complete(run);
+            return run;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);  // waiting requests fail the same way, nothing is cached
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static Run await(CompletableFuture<Run> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private synchronized Run lookup(String key) {
+        Run run = entries.get(key);  // access order moves the run to the tail
+        if (run == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return run;
+    }
+
+    private synchronized Run peek(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void store(String key, Run run) {
+        long size = run.bytes();
+        if (size > maxBytes) {
+            return;  // would evict everything else and still not fit
+        }
+        Run previous = entries.put(key, run);
+        bytes += size - (previous == null ? 0 : previous.bytes());
+        // least recently used runs are at the head
+        Iterator<Run> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    // Snapshot of cache counters for monitoring
+    public synchronized Map<String, Object> stats() {
+        long requests = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("bytes", bytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("joins", joins);
+        stats.put("evictions", evictions);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        return stats;
+    }
+}
@@ -4,8 +4,6 @@ import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -16,12 +14,8 @@ import javax.validation.constraints.Email;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Size;
 
-import org.hibernate.annotations.Type;
-import org.hibernate.annotations.TypeDef;
 import org.springframework.format.annotation.DateTimeFormat;
 
-import com.vladmihalcea.hibernate.type.json.JsonType;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -38,7 +32,6 @@ The last annotation connect to database
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@TypeDef(name="json", typeClass = JsonType.class)
 public class Person {
     
     // automatic unique identifier for Person record
@@ -74,18 +67,8 @@ public class Person {
     @Column(unique=false)
     private int goal_steps;
 
-    /* HashMap is used to store JSON for daily "stats"
-    "stats": {
-        "2022-11-13": {
-            "calories": 2200,
-            "steps": 8000
-        }
-    }
-    */
-    @Type(type="json")
-    @Column(columnDefinition = "jsonb")
-    private Map<String,Map<String, Object>> stats = new HashMap<>(); 
-    
+    // daily "stats" (steps, calories, ...) are rows of their own, see PersonStat,
+    // so Person JSON has no "stats" map, clients read them from /api/person/getStats/{id}
 
     // Constructor used when building object from an API
     public Person(String email, String password, String name, Date dob, int height, int weight, int goal_steps) {
@@ -111,14 +94,6 @@ public class Person {
         return ("{ \"email\": " + this.email + ", " + "\"password\": " + this.password + ", " + "\"name\": " + this.name + ", " + "\"dob\": " + this.dob + " }" );
     }
 
-    public void addStat(String date, Map<String, Object> stat) {
-        this.stats.put(date, stat);
-    }
-
-    public Map<String, Object> getStat(String date) {
-        return this.stats.get(date);
-    }
-
     public int calculateBMI() {
         double heightInMeters = this.height / 100.0;
         double bmi = this.weight / (heightInMeters * heightInMeters);
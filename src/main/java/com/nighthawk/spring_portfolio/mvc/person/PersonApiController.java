@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 
 @RestController
 @RequestMapping("/api/person")
@@ -21,6 +22,10 @@ public class PersonApiController {
     @Autowired
     private PersonJpaRepository repository;
 
+    // daily stats, one row per person, date and metric
+    @Autowired
+    private PersonStatJpaRepository statRepository;
+
     /*
     GET List of People
      */
@@ -75,6 +80,7 @@ public class PersonApiController {
         Optional<Person> optional = repository.findById(id);
         if (optional.isPresent()) {  // Good ID
             Person person = optional.get();  // value from findByID
+            statRepository.deleteByPersonId(id);  // stats belong to the person
             repository.deleteById(id);  // value from findByID
             return new ResponseEntity<>(person, HttpStatus.OK);  // OK HTTP response: status code, headers, and body
         }
@@ -121,36 +127,74 @@ public class PersonApiController {
     }
 
     /*
-    The personStats API adds stats by Date to Person table 
+    The personStats API sets stats by Date for a Person
+    Body: {"id": "1", "date": "2022-11-13", "calories": 2200, "steps": "8000"}
+    Values are numbers or numeric strings, dates are yyyy-MM-dd with years 0000-9999.
+    Each metric is upserted on its own row, metrics not in the body keep their values.
+    Returns the day's stats: {"2022-11-13": {"calories": 2200.0, "steps": 8000.0}}
+    -- this used to return the whole Person with its "stats" map, Person JSON no longer has stats,
+       read them with /getStats/{id}
     */
     @PostMapping(value = "/setStats", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Person> personStats(@RequestBody final Map<String,Object> stat_map) {
-        // find ID
-        long id=Long.parseLong((String)stat_map.get("id"));  
-        Optional<Person> optional = repository.findById((id));
-        if (optional.isPresent()) {  // Good ID
-            Person person = optional.get();  // value from findByID
+    public ResponseEntity<Object> personStats(@RequestBody final Map<String,Object> stat_map) {
+        // find ID and date
+        long id;
+        String date;
+        try {
+            id = Long.parseLong(String.valueOf(stat_map.get("id")));
+            date = PersonStat.isoDate(String.valueOf(stat_map.get("date")));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return new ResponseEntity<>("id and date (yyyy-MM-dd, years 0000-9999) are required", HttpStatus.BAD_REQUEST);
+        }
+        if (!repository.existsById(id)) {
+            // return Bad ID
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-            // Extract Attributes from JSON
-            Map<String, Object> attributeMap = new HashMap<>();
-            for (Map.Entry<String,Object> entry : stat_map.entrySet())  {
-                // Add all attribute other thaN "date" to the "attribute_map"
-                if (!entry.getKey().equals("date") && !entry.getKey().equals("id"))
-                    attributeMap.put(entry.getKey(), entry.getValue());
-            }
-
-            // Set Date and Attributes to SQL HashMap
-            Map<String, Map<String, Object>> date_map = person.getStats(); // get existing stats
-            date_map.put( (String) stat_map.get("date"), attributeMap );
-            person.setStats(date_map);  // BUG, needs to be customized to replace if existing or append if new
-            repository.save(person);  // conclude by writing the stats updates
-
-            // return Person with update Stats
-            return new ResponseEntity<>(person, HttpStatus.OK);
+        // Extract numeric attributes other than "date" and "id" from JSON, one row each
+        List<PersonStat> stats = new ArrayList<>();
+        for (Map.Entry<String,Object> entry : stat_map.entrySet())  {
+            if (entry.getKey().equals("date") || entry.getKey().equals("id"))
+                continue;
+            Double value = PersonStat.number(entry.getValue());
+            if (value == null)
+                return new ResponseEntity<>(entry.getKey() + " must be a number", HttpStatus.BAD_REQUEST);
+            stats.add(new PersonStat(id, date, entry.getKey(), value));
         }
-        // return Bad ID
-        return new ResponseEntity<>(HttpStatus.BAD_REQUEST); 
-        
+        statRepository.saveAll(stats);  // insert new metrics, replace existing ones
+
+        // return the day's stats
+        return new ResponseEntity<>(toDateMap(statRepository.findByPersonIdAndDateBetweenOrderByDateAscMetricAsc(id, date, date)), HttpStatus.OK);
+    }
+
+    /*
+    GET stats of a Person for an inclusive date range, e.g. /getStats/1?from=2022-11-01&to=2022-11-30
+    Only rows in the range are read. Returns {"2022-11-13": {"calories": 2200.0, "steps": 8000.0}, ...}
+    */
+    @GetMapping("/getStats/{id}")
+    public ResponseEntity<Object> getStats(@PathVariable long id,
+                                           @RequestParam(name = "from", defaultValue = "0000-01-01") String from,
+                                           @RequestParam(name = "to", defaultValue = "9999-12-31") String to) {
+        try {
+            from = PersonStat.isoDate(from);
+            to = PersonStat.isoDate(to);
+        } catch (DateTimeParseException e) {
+            return new ResponseEntity<>("from and to must be yyyy-MM-dd, years 0000-9999", HttpStatus.BAD_REQUEST);
+        }
+        if (!repository.existsById(id)) {
+            // Bad ID
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(toDateMap(statRepository.findByPersonIdAndDateBetweenOrderByDateAscMetricAsc(id, from, to)), HttpStatus.OK);
+    }
+
+    // Rows ordered by date, grouped into {date: {metric: value}}
+    private static Map<String, Map<String, Object>> toDateMap(List<PersonStat> stats) {
+        Map<String, Map<String, Object>> date_map = new LinkedHashMap<>();
+        for (PersonStat stat : stats) {
+            date_map.computeIfAbsent(stat.getDate(), date -> new LinkedHashMap<>()).put(stat.getMetric(), stat.getValue());
+        }
+        return date_map;
     }
 
 }
@@ -0,0 +1,85 @@
+package com.nighthawk.spring_portfolio.mvc.person;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+PersonStat is one daily stat of a Person, e.g. the steps person 1 walked on 2022-11-13.
+One row per (person, date, metric), so setting a day's stats touches only those rows
+and a date range is read through the (person_id, stat_date) index.
+--- @IdClass makes the three columns together the primary key
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(PersonStat.Key.class)
+@Table(name = "person_stat", indexes = @Index(name = "person_stat_person_date", columnList = "person_id, stat_date"))
+public class PersonStat {
+
+    @Id
+    @Column(name = "person_id")
+    private Long personId;
+
+    // ISO yyyy-MM-dd with a four digit year (see isoDate), so dates sort and compare as strings
+    @Id
+    @Column(name = "stat_date", length = 10)
+    private String date;
+
+    // e.g. "steps", "calories"
+    @Id
+    @Column(name = "metric", length = 64)
+    private String metric;
+
+    @Column(name = "stat_value")
+    private double value;
+
+    /* Stored form of a yyyy-MM-dd date, DateTimeParseException if it is not one
+     * LocalDate also parses years like +10000 or -0001, whose strings would not sort with the others,
+     * so only years 0000-9999 are accepted.
+     */
+    public static String isoDate(String text) {
+        LocalDate date = LocalDate.parse(text);
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            throw new DateTimeParseException("Year must be 0000-9999", text, 0);
+        }
+        return date.toString();
+    }
+
+    /* Stat value from JSON, a number or a numeric string, null for anything else */
+    public static Double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /* Composite primary key, field names match the @Id fields above */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long personId;
+        private String date;
+        private String metric;
+    }
+}
@@ -0,0 +1,20 @@
+package com.nighthawk.spring_portfolio.mvc.person;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/*
+Daily stats of each Person, keyed by person, date and metric.
+-- save() of an existing key updates that one row, a new key inserts it
+-- dates are ISO strings, so Between selects an inclusive date range
+ */
+public interface PersonStatJpaRepository extends JpaRepository<PersonStat, PersonStat.Key> {
+    // JPA query, uses the (person_id, stat_date) index
+    List<PersonStat> findByPersonIdAndDateBetweenOrderByDateAscMetricAsc(Long personId, String from, String to);
+
+    // derived deletes need a transaction of their own
+    @Transactional
+    void deleteByPersonId(Long personId);
+}
@@ -0,0 +1,99 @@
+package com.nighthawk.spring_portfolio.mvc.person;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/*
+One-time copy of the legacy person.stats JSON column into person_stat rows.
+-- runs at startup from ModelInit, does nothing once the column is gone or empty
+-- rows already in person_stat are newer than the blob and are kept
+-- a person's blob is cleared only after every entry was copied, entries that cannot become
+   a (date, metric, number) row are logged and left in the blob
+ */
+@Component
+public class PersonStatMigration {
+    private static final Logger LOGGER = Logger.getLogger(PersonStatMigration.class.getName());
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PersonStatJpaRepository statRepository;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    public void migrate() {
+        if (!hasLegacyColumn()) {
+            return;
+        }
+        List<Map<String, Object>> people = jdbc.queryForList("SELECT id, stats FROM person WHERE stats IS NOT NULL");
+        for (Map<String, Object> person : people) {
+            long id = ((Number) person.get("id")).longValue();
+            if (migrate(id, text(person.get("stats")))) {
+                jdbc.update("UPDATE person SET stats = NULL WHERE id = ?", id);
+            }
+        }
+    }
+
+    // Copy one person's blob, true if every entry became a row (or already had one)
+    private boolean migrate(long id, String json) {
+        Map<String, Map<String, Object>> stats;
+        try {
+            stats = mapper.readValue(json, new TypeReference<Map<String, Map<String, Object>>>() {});
+        } catch (JsonProcessingException e) {
+            LOGGER.warning("Person " + id + ": stats are not valid JSON, left in place");
+            return false;
+        }
+        if (stats == null) {
+            return true;
+        }
+        boolean complete = true;
+        List<PersonStat> rows = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> day : stats.entrySet()) {
+            String date;
+            try {
+                date = PersonStat.isoDate(day.getKey());
+            } catch (DateTimeParseException e) {
+                LOGGER.warning("Person " + id + ": stats date " + day.getKey() + " is not yyyy-MM-dd, left in place");
+                complete = false;
+                continue;
+            }
+            if (day.getValue() == null) {
+                continue;
+            }
+            for (Map.Entry<String, Object> metric : day.getValue().entrySet()) {
+                Double value = PersonStat.number(metric.getValue());
+                if (value == null) {
+                    LOGGER.warning("Person " + id + ": " + date + " " + metric.getKey() + " is not a number, left in place");
+                    complete = false;
+                } else if (!statRepository.existsById(new PersonStat.Key(id, date, metric.getKey()))) {
+                    rows.add(new PersonStat(id, date, metric.getKey(), value));
+                }
+            }
+        }
+        statRepository.saveAll(rows);
+        return complete;
+    }
+
+    private boolean hasLegacyColumn() {
+        return jdbc.queryForList("PRAGMA table_info(person)").stream()
+            .anyMatch(column -> "stats".equalsIgnoreCase(String.valueOf(column.get("name"))));
+    }
+
+    private static String text(Object column) {
+        return (column instanceof byte[]) ? new String((byte[]) column, StandardCharsets.UTF_8) : column.toString();
+    }
+}